@@ -24,7 +24,42 @@ package de.blizzy.pathfinder;
 import org.eclipse.swt.graphics.Point;
 
 public enum Direction {
-	NORTH, WEST, SOUTH, EAST;
+	NORTH(0, -1), WEST(-1, 0), SOUTH(0, 1), EAST(1, 0);
+
+	private int deltaX;
+	private int deltaY;
+
+	private Direction(int deltaX, int deltaY) {
+		this.deltaX = deltaX;
+		this.deltaY = deltaY;
+	}
+
+	public int getDeltaX() {
+		return deltaX;
+	}
+
+	public int getDeltaY() {
+		return deltaY;
+	}
+
+	public Direction getOpposite() {
+		switch (this) {
+			case NORTH:
+				return SOUTH;
+			case WEST:
+				return EAST;
+			case SOUTH:
+				return NORTH;
+			case EAST:
+				return WEST;
+			default:
+				throw new IllegalStateException();
+		}
+	}
+
+	public Point getAdjacentLocation(Point location) {
+		return new Point(location.x + deltaX, location.y + deltaY);
+	}
 
 	public static Direction getHeadedTo(Point origin, Point target) {
 		int originX = origin.x;
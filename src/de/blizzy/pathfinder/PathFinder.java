@@ -21,7 +21,9 @@ SOFTWARE.
 */
 package de.blizzy.pathfinder;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 import org.eclipse.jface.layout.GridLayoutFactory;
 import org.eclipse.swt.SWT;
@@ -39,6 +41,10 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Display;
 import org.eclipse.swt.widgets.Shell;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
 import de.blizzy.pathfinder.actor.Area;
 import de.blizzy.pathfinder.actor.Building;
 import de.blizzy.pathfinder.actor.ClickEvent;
@@ -53,10 +59,16 @@ import de.blizzy.pathfinder.actor.Vehicle;
 import de.blizzy.pathfinder.actor.World;
 
 class PathFinder {
+	private static final int MAX_ROUTE_EXPANSIONS = 100000;
+	private static final long MAX_ROUTE_MILLIS = 2000;
+	private static final int SENT_VEHICLES = 200;
+
 	private boolean running = true;
 	private Display display;
 	private Point startLocation;
 	private RouteOverlay routeOverlay;
+	private List<Vehicle> vehicles = new ArrayList<>();
+	private boolean sendVehicles;
 
 	void run() {
 		display = Display.getDefault();
@@ -115,6 +127,13 @@ class PathFinder {
 		Button pauseButton = new Button(composite, SWT.TOGGLE);
 		pauseButton.setText("Pause"); //$NON-NLS-1$
 
+		Button sendVehiclesButton = new Button(composite, SWT.TOGGLE);
+		sendVehiclesButton.setText("Send Vehicles"); //$NON-NLS-1$
+
+		Button cooperativeRoutingButton = new Button(composite, SWT.CHECK);
+		cooperativeRoutingButton.setText("Cooperative Routing"); //$NON-NLS-1$
+		cooperativeRoutingButton.setSelection(world.isCooperativeRouting());
+
 		composite.setLayout(GridLayoutFactory.swtDefaults().margins(0, 0).create());
 
 		world.addClickListener(new IClickListener() {
@@ -131,6 +150,21 @@ class PathFinder {
 			}
 		});
 
+		sendVehiclesButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				sendVehicles = ((Button) e.widget).getSelection();
+				startLocation = null;
+			}
+		});
+
+		cooperativeRoutingButton.addSelectionListener(new SelectionAdapter() {
+			@Override
+			public void widgetSelected(SelectionEvent e) {
+				world.setCooperativeRouting(((Button) e.widget).getSelection());
+			}
+		});
+
 		return world;
 	}
 
@@ -164,6 +198,7 @@ class PathFinder {
 		Vehicle firstVehicle = null;
 		for (int i = 1; i <= 750; i++) {
 			Vehicle vehicle = new Vehicle(world, new Point(36, 40));
+			vehicles.add(vehicle);
 			if (firstVehicle == null) {
 				firstVehicle = vehicle;
 			}
@@ -195,16 +230,50 @@ class PathFinder {
 		display.wake();
 	}
 
-	private void handleClick(Point location, World world) {
-		if (startLocation == null) {
+	private void handleClick(Point location, final World world) {
+		Point roadLocation = world.getNearestRoadLocation(location);
+		if (roadLocation != null) {
+			location = roadLocation;
+		}
+
+		if (sendVehicles) {
+			// vehicles follow the shortest route to the location and wander again once they have arrived
+			for (Vehicle vehicle : vehicles.subList(0, Math.min(SENT_VEHICLES, vehicles.size()))) {
+				vehicle.setDestination(location);
+			}
+		} else if (startLocation == null) {
 			startLocation = location;
 		} else {
 			Point startLocation = this.startLocation;
 			this.startLocation = null;
 			Point endLocation = location;
-			List<Point> route = world.getShortestRoute(startLocation, endLocation);
-			routeOverlay.setRoute(route);
-			world.redraw();
+			ListenableFuture<List<Point>> route = world.getShortestRouteAsync(startLocation, endLocation,
+					MAX_ROUTE_EXPANSIONS, MAX_ROUTE_MILLIS);
+			Futures.addCallback(route, new FutureCallback<List<Point>>() {
+				@Override
+				public void onSuccess(List<Point> route) {
+					showRoute(route, world);
+				}
+
+				@Override
+				public void onFailure(Throwable t) {
+					if (!(t instanceof CancellationException)) {
+						showRoute(null, world);
+					}
+				}
+			});
+		}
+	}
+
+	private void showRoute(final List<Point> route, final World world) {
+		if (!display.isDisposed()) {
+			display.asyncExec(new Runnable() {
+				@Override
+				public void run() {
+					routeOverlay.setRoute(route);
+					world.redraw();
+				}
+			});
 		}
 	}
 }
@@ -0,0 +1,112 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.swt.graphics.Point;
+
+import de.blizzy.pathfinder.Direction;
+import de.blizzy.pathfinder.route.CooperativeAStar;
+import de.blizzy.pathfinder.route.ReservationTable;
+import de.blizzy.pathfinder.route.SpaceTimeRoute;
+
+/**
+ * Plans the next steps of vehicles that have a destination, so that they do not plan to be in the
+ * same place at the same time. Each vehicle reserves the cells of its next steps, one animation
+ * frame at a time, and plans around the reservations of the other vehicles. Vehicles replan when
+ * half of their window has passed, or when they could not follow their plan.
+ */
+class CooperativePlanner {
+	static final int WINDOW = 8;
+
+	private World world;
+	private GridRouteFunctions gridRouteFunctions;
+	private ReservationTable reservations = new ReservationTable(1024);
+	private CooperativeAStar aStar = new CooperativeAStar(WINDOW);
+	private Map<Vehicle, Plan> plans = new HashMap<>();
+	private int nextOwner;
+
+	private static class Plan {
+		int owner;
+		SpaceTimeRoute route;
+
+		Plan(int owner) {
+			this.owner = owner;
+		}
+	}
+
+	CooperativePlanner(World world, GridRouteFunctions gridRouteFunctions) {
+		this.world = world;
+		this.gridRouteFunctions = gridRouteFunctions;
+	}
+
+	/**
+	 * Returns the location <code>vehicle</code> should move to in its step at the current frame. This
+	 * is the vehicle's location if it should wait. Returns <code>null</code> if there is no route to
+	 * <code>destination</code>.
+	 */
+	synchronized Point getNextLocation(Vehicle vehicle, Point location, Direction headedTo, Point destination,
+			int stepFrames) {
+
+		long frame = world.getFrame();
+		int node = gridRouteFunctions.toNode(location);
+		Plan plan = plans.get(vehicle);
+		if (plan == null) {
+			plan = new Plan(nextOwner++);
+			plans.put(vehicle, plan);
+		}
+
+		SpaceTimeRoute route = plan.route;
+		int step = (route != null) ? route.getStep(frame) : -1;
+		if ((step < 0) || (route.getNode(step) != node) || (step >= Math.min(WINDOW / 2, route.getStepCount() - 1))) {
+			if (route != null) {
+				reservations.release(route, plan.owner);
+			}
+
+			Point precedingLocation = headedTo.getOpposite().getAdjacentLocation(location);
+			int precedingNode = world.contains(precedingLocation) ? gridRouteFunctions.toNode(precedingLocation) : -1;
+			route = world.getCooperativeRoute(aStar, node, precedingNode, gridRouteFunctions.toNode(destination),
+					reservations, plan.owner, frame, stepFrames);
+			plan.route = route;
+			if (route == null) {
+				return null;
+			}
+			reservations.reserve(route, plan.owner);
+			step = 0;
+		}
+
+		return (step < (route.getStepCount() - 1)) ? gridRouteFunctions.toLocation(route.getNode(step + 1)) : location;
+	}
+
+	synchronized void release(Vehicle vehicle) {
+		Plan plan = plans.remove(vehicle);
+		if ((plan != null) && (plan.route != null)) {
+			reservations.release(plan.route, plan.owner);
+		}
+	}
+
+	synchronized int getReservationCount() {
+		return reservations.size();
+	}
+}
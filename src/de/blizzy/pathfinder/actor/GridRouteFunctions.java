@@ -0,0 +1,124 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import org.eclipse.swt.graphics.Point;
+
+import de.blizzy.pathfinder.Direction;
+import de.blizzy.pathfinder.route.DirectedGraph;
+import de.blizzy.pathfinder.route.DirectedGraphBuilder;
+import de.blizzy.pathfinder.route.IIndexedAStarFunctions;
+
+class GridRouteFunctions implements IIndexedAStarFunctions {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private World world;
+	private int width;
+	private int height;
+
+	GridRouteFunctions(World world) {
+		this.world = world;
+		width = world.getWidth();
+		height = world.getHeight();
+	}
+
+	int toNode(Point location) {
+		return location.y * width + location.x;
+	}
+
+	Point toLocation(int node) {
+		return new Point(node % width, node / width);
+	}
+
+	// static road topology: right side of road rules only, regardless of heading and road blocks
+	DirectedGraph createRoadGraph() {
+		LaneGraph laneGraph = world.getLaneGraph();
+		int[] cellCosts = world.getCellCosts();
+		DirectedGraphBuilder builder = new DirectedGraphBuilder(getNodeCount());
+		for (int node = 0; node < getNodeCount(); node++) {
+			int end = laneGraph.getFirstMove(node + 1);
+			for (int move = laneGraph.getFirstMove(node); move < end; move++) {
+				int newNode = laneGraph.getMoveTarget(move);
+				builder.addEdge(node, newNode, cellCosts[newNode]);
+			}
+		}
+		return builder.build();
+	}
+
+	@Override
+	public int getNodeCount() {
+		return width * height;
+	}
+
+	@Override
+	public int getMaxAdjacentNodes() {
+		return DIRECTIONS.length;
+	}
+
+	@Override
+	public double getEstimatedDistanceToTarget(int node, int target) {
+		int x = Math.abs((target % width) - (node % width));
+		int y = Math.abs((target / width) - (node / width));
+		return Math.sqrt(Math.pow(x, 2d) + Math.pow(y, 2d));
+	}
+
+	@Override
+	public double getDistance(int node1, int node2) {
+		return world.getCellCosts()[node2];
+	}
+
+	@Override
+	public int getAdjacentNodes(int node, int precedingNode, int[] adjacentNodes) {
+		LaneGraph laneGraph = world.getLaneGraph();
+		Direction headedTo = (precedingNode >= 0) ? getHeadedTo(precedingNode, node) : null;
+		int adjacentNodeCount = 0;
+		int end = laneGraph.getFirstMove(node + 1);
+		for (int move = laneGraph.getFirstMove(node); move < end; move++) {
+			if (laneGraph.getMoveDirection(move).getOpposite() != headedTo) {
+				int newNode = laneGraph.getMoveTarget(move);
+				if (!isRoadBlockedAt(newNode)) {
+					adjacentNodes[adjacentNodeCount++] = newNode;
+				}
+			}
+		}
+		return adjacentNodeCount;
+	}
+
+	boolean isRoadBlockedAt(int node) {
+		return world.isRoadBlockedAt(node);
+	}
+
+	// nodes must be in the same row or column
+	Direction getHeadedTo(int node1, int node2) {
+		int delta = node2 - node1;
+		if ((node1 / width) == (node2 / width)) {
+			if (delta < 0) {
+				return Direction.WEST;
+			} else if (delta > 0) {
+				return Direction.EAST;
+			}
+		} else if ((delta % width) == 0) {
+			return (delta < 0) ? Direction.NORTH : Direction.SOUTH;
+		}
+		throw new IllegalArgumentException("nodes must be in the same row or column"); //$NON-NLS-1$
+	}
+}
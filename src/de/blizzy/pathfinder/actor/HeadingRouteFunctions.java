@@ -0,0 +1,121 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import de.blizzy.pathfinder.Direction;
+import de.blizzy.pathfinder.route.IIndexedTargetFunctions;
+
+/**
+ * Route functions for searching (cell, heading) states instead of cells. A state is encoded as
+ * <code>cell * 4 + heading.ordinal()</code>, where the heading is the direction the cell was entered
+ * in. Since U-turns depend on the heading, a cell entered with different headings must be searched
+ * once per heading, or routes will be missed.
+ * <p>
+ * The origin of a search is the state <code>cell * 4</code> without a predecessor, which may be left
+ * in any direction. A target is a cell, given as the state <code>cell * 4</code>, and is reached with
+ * any heading.
+ */
+class HeadingRouteFunctions implements IIndexedTargetFunctions {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int HEADING_COUNT = 4;
+
+	private World world;
+	private GridRouteFunctions gridRouteFunctions;
+
+	HeadingRouteFunctions(World world, GridRouteFunctions gridRouteFunctions) {
+		this.world = world;
+		this.gridRouteFunctions = gridRouteFunctions;
+	}
+
+	int toState(int cell) {
+		return cell * HEADING_COUNT;
+	}
+
+	int toCell(int state) {
+		return state / HEADING_COUNT;
+	}
+
+	int[] toCells(int[] route) {
+		if (route != null) {
+			int[] cells = new int[route.length];
+			for (int i = 0; i < route.length; i++) {
+				cells[i] = toCell(route[i]);
+			}
+			return cells;
+		} else {
+			return null;
+		}
+	}
+
+	// copies each cell's value to all of the cell's states
+	double[] toStates(double[] cellValues) {
+		double[] values = new double[cellValues.length * HEADING_COUNT];
+		for (int state = 0; state < values.length; state++) {
+			values[state] = cellValues[toCell(state)];
+		}
+		return values;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return gridRouteFunctions.getNodeCount() * HEADING_COUNT;
+	}
+
+	@Override
+	public int getMaxAdjacentNodes() {
+		return HEADING_COUNT;
+	}
+
+	@Override
+	public double getEstimatedDistanceToTarget(int node, int target) {
+		return gridRouteFunctions.getEstimatedDistanceToTarget(toCell(node), toCell(target));
+	}
+
+	@Override
+	public double getDistance(int node1, int node2) {
+		return gridRouteFunctions.getDistance(toCell(node1), toCell(node2));
+	}
+
+	@Override
+	public int getAdjacentNodes(int node, int precedingNode, int[] adjacentNodes) {
+		LaneGraph laneGraph = world.getLaneGraph();
+		int cell = toCell(node);
+		Direction headedTo = (precedingNode >= 0) ? DIRECTIONS[node % HEADING_COUNT] : null;
+		int adjacentNodeCount = 0;
+		int end = laneGraph.getFirstMove(cell + 1);
+		for (int move = laneGraph.getFirstMove(cell); move < end; move++) {
+			Direction direction = laneGraph.getMoveDirection(move);
+			if (direction.getOpposite() != headedTo) {
+				int newCell = laneGraph.getMoveTarget(move);
+				if (!gridRouteFunctions.isRoadBlockedAt(newCell)) {
+					adjacentNodes[adjacentNodeCount++] = newCell * HEADING_COUNT + direction.ordinal();
+				}
+			}
+		}
+		return adjacentNodeCount;
+	}
+
+	@Override
+	public int getTargetNode(int node) {
+		return node - (node % HEADING_COUNT);
+	}
+}
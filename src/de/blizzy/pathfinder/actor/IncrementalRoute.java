@@ -0,0 +1,75 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.swt.graphics.Point;
+
+import de.blizzy.pathfinder.route.DStarLite;
+
+/**
+ * A route between two locations that is repaired incrementally when road blocks are added, instead
+ * of being searched again from scratch.
+ */
+public class IncrementalRoute implements IRoadBlockListener {
+	private World world;
+	private GridRouteFunctions gridRouteFunctions;
+	private DStarLite search;
+
+	IncrementalRoute(World world, GridRouteFunctions gridRouteFunctions, DStarLite search) {
+		this.world = world;
+		this.gridRouteFunctions = gridRouteFunctions;
+		this.search = search;
+	}
+
+	public synchronized List<Point> getRoute() {
+		int[] route = search.getShortestRoute();
+		if (route != null) {
+			List<Point> locations = new ArrayList<>(route.length);
+			for (int node : route) {
+				locations.add(gridRouteFunctions.toLocation(node));
+			}
+			return locations;
+		} else {
+			return null;
+		}
+	}
+
+	public synchronized void setOrigin(Point origin) {
+		search.setOrigin(gridRouteFunctions.toNode(origin));
+	}
+
+	public synchronized int getExpansions() {
+		return search.getExpansions();
+	}
+
+	@Override
+	public synchronized void roadBlockAdded(RoadBlockEvent event) {
+		search.setBlocked(gridRouteFunctions.toNode(event.getLocation()), true);
+	}
+
+	public void dispose() {
+		world.removeRoadBlockListener(this);
+	}
+}
@@ -0,0 +1,168 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import org.eclipse.swt.graphics.Point;
+
+import de.blizzy.pathfinder.Direction;
+
+/**
+ * Static lane topology of a world, compiled once from its road raster. For each cell, the moves
+ * leaving the cell are stored in compressed sparse row form. Road blocks, traffic lights and
+ * vehicles are not considered. Instances are immutable and may be read without locking.
+ */
+class LaneGraph {
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	private int width;
+	private int height;
+	private RoadRaster roadRaster;
+	private int[] firstMoves;
+	private int[] moveTargets;
+	private byte[] moveDirections;
+	private int[] nearestRoadCells;
+
+	LaneGraph(World world) {
+		width = world.getWidth();
+		height = world.getHeight();
+		roadRaster = world.getRoadRaster();
+		int cellCount = width * height;
+
+		firstMoves = new int[cellCount + 1];
+		for (int cell = 0; cell < cellCount; cell++) {
+			firstMoves[cell + 1] = firstMoves[cell];
+			for (Direction direction : DIRECTIONS) {
+				int target = getAdjacentCell(cell, direction);
+				if ((target >= 0) && canEnter(target, direction)) {
+					firstMoves[cell + 1]++;
+				}
+			}
+		}
+		moveTargets = new int[firstMoves[cellCount]];
+		moveDirections = new byte[firstMoves[cellCount]];
+		int move = 0;
+		for (int cell = 0; cell < cellCount; cell++) {
+			for (Direction direction : DIRECTIONS) {
+				int target = getAdjacentCell(cell, direction);
+				if ((target >= 0) && canEnter(target, direction)) {
+					moveTargets[move] = target;
+					moveDirections[move] = (byte) direction.ordinal();
+					move++;
+				}
+			}
+		}
+
+		nearestRoadCells = findNearestRoadCells();
+	}
+
+	// breadth-first search starting at all road cells at once
+	private int[] findNearestRoadCells() {
+		int cellCount = getCellCount();
+		int[] nearestRoadCells = new int[cellCount];
+		int[] queue = new int[cellCount];
+		int head = 0;
+		int tail = 0;
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (isRoad(cell)) {
+				nearestRoadCells[cell] = cell;
+				queue[tail++] = cell;
+			} else {
+				nearestRoadCells[cell] = -1;
+			}
+		}
+		while (head < tail) {
+			int cell = queue[head++];
+			for (Direction direction : DIRECTIONS) {
+				int adjacentCell = getAdjacentCell(cell, direction);
+				if ((adjacentCell >= 0) && (nearestRoadCells[adjacentCell] < 0)) {
+					nearestRoadCells[adjacentCell] = nearestRoadCells[cell];
+					queue[tail++] = adjacentCell;
+				}
+			}
+		}
+		return nearestRoadCells;
+	}
+
+	int getWidth() {
+		return width;
+	}
+
+	int getHeight() {
+		return height;
+	}
+
+	int getCellCount() {
+		return roadRaster.getCellCount();
+	}
+
+	int toCell(Point location) {
+		return location.y * width + location.x;
+	}
+
+	boolean contains(Point location) {
+		return (location.x >= 0) && (location.x < width) && (location.y >= 0) && (location.y < height);
+	}
+
+	boolean isRoad(int cell) {
+		return roadRaster.canEnter(cell);
+	}
+
+	/**
+	 * Returns the road cell nearest to <code>cell</code>, or -1 if there are no roads.
+	 */
+	int getNearestRoadCell(int cell) {
+		return nearestRoadCells[cell];
+	}
+
+	/**
+	 * Returns whether <code>cell</code> is on the right side of the road for vehicles heading to
+	 * <code>headedTo</code>.
+	 */
+	boolean canEnter(int cell, Direction headedTo) {
+		return roadRaster.canEnter(cell, headedTo);
+	}
+
+	/**
+	 * Returns the adjacent cell in <code>direction</code>, or -1 if there is none.
+	 */
+	int getAdjacentCell(int cell, Direction direction) {
+		int x = (cell % width) + direction.getDeltaX();
+		int y = (cell / width) + direction.getDeltaY();
+		return ((x >= 0) && (x < width) && (y >= 0) && (y < height)) ? (y * width + x) : -1;
+	}
+
+	/**
+	 * Returns the first move leaving <code>cell</code>. The moves leaving <code>cell</code> end
+	 * before the first move of <code>cell + 1</code>.
+	 */
+	int getFirstMove(int cell) {
+		return firstMoves[cell];
+	}
+
+	int getMoveTarget(int move) {
+		return moveTargets[move];
+	}
+
+	Direction getMoveDirection(int move) {
+		return DIRECTIONS[moveDirections[move]];
+	}
+}
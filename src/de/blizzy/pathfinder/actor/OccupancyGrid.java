@@ -0,0 +1,79 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Tracks what occupies each cell of the world, so that checking a cell for vehicles or road blocks
+ * is O(1) instead of a scan over all actors. Vehicles are counted per cell, since several vehicles
+ * may share a cell, for example when they are placed at the same location. All updates are atomic,
+ * so that route searches on other threads see a consistent count.
+ */
+class OccupancyGrid {
+	private AtomicIntegerArray vehicles;
+	private AtomicIntegerArray parkingVehicles;
+	private AtomicIntegerArray roadBlocks;
+
+	OccupancyGrid(int cellCount) {
+		vehicles = new AtomicIntegerArray(cellCount);
+		parkingVehicles = new AtomicIntegerArray(cellCount);
+		roadBlocks = new AtomicIntegerArray(cellCount);
+	}
+
+	void addVehicle(int cell, boolean parking) {
+		vehicles.incrementAndGet(cell);
+		if (parking) {
+			parkingVehicles.incrementAndGet(cell);
+		}
+	}
+
+	// vehicles only move while driving
+	void moveVehicle(int fromCell, int toCell) {
+		vehicles.incrementAndGet(toCell);
+		vehicles.decrementAndGet(fromCell);
+	}
+
+	void setVehicleParking(int cell, boolean parking) {
+		if (parking) {
+			parkingVehicles.incrementAndGet(cell);
+		} else {
+			parkingVehicles.decrementAndGet(cell);
+		}
+	}
+
+	void addRoadBlock(int cell) {
+		roadBlocks.incrementAndGet(cell);
+	}
+
+	boolean isVehicleAt(int cell) {
+		return vehicles.get(cell) > 0;
+	}
+
+	boolean isParkingVehicleAt(int cell) {
+		return parkingVehicles.get(cell) > 0;
+	}
+
+	boolean isRoadBlockAt(int cell) {
+		return roadBlocks.get(cell) > 0;
+	}
+}
@@ -71,6 +71,10 @@ public class RoadBlock implements IActor {
 		return true;
 	}
 
+	Point getLocation() {
+		return location;
+	}
+
 	@Override
 	public boolean contains(Point location) {
 		return location.equals(this.location);
@@ -0,0 +1,194 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.swt.graphics.Point;
+import org.eclipse.swt.graphics.Rectangle;
+
+import de.blizzy.pathfinder.Direction;
+
+/**
+ * Static per-cell facts about a world, compiled once from its roads and traffic lights: the roads
+ * covering each cell, the directions in which each cell may be entered as a bit mask, and the traffic
+ * light covering each cell. Cells share interned road sets, so memory use is a fixed number of bytes
+ * per cell. Instances are immutable and may be read without locking.
+ */
+class RoadRaster {
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final int NO_TRAFFIC_LIGHT = -1;
+
+	private int width;
+	private int height;
+	private List<Set<Road>> roadSets;
+	private int[] roadSetIndexes;
+	private byte[] enterMasks;
+	private TrafficLight[] trafficLights;
+	private int[] trafficLightIndexes;
+
+	RoadRaster(int width, int height, Road[] roads, TrafficLight[] trafficLights) {
+		this.width = width;
+		this.height = height;
+		int cellCount = width * height;
+
+		// road set 0 is the empty set
+		roadSets = new ArrayList<>();
+		roadSets.add(Collections.<Road>emptySet());
+		Map<Set<Road>, Integer> roadSetIndexesBySet = new HashMap<>();
+		roadSetIndexes = new int[cellCount];
+		for (Road road : roads) {
+			Map<Integer, Integer> newRoadSetIndexes = new HashMap<>();
+			Rectangle area = road.getArea().getArea();
+			for (int y = area.y; y < (area.y + area.height); y++) {
+				for (int x = area.x; x < (area.x + area.width); x++) {
+					int cell = y * width + x;
+					Integer newRoadSetIndex = newRoadSetIndexes.get(roadSetIndexes[cell]);
+					if (newRoadSetIndex == null) {
+						Set<Road> roadSet = new HashSet<>(roadSets.get(roadSetIndexes[cell]));
+						roadSet.add(road);
+						newRoadSetIndex = roadSetIndexesBySet.get(roadSet);
+						if (newRoadSetIndex == null) {
+							newRoadSetIndex = roadSets.size();
+							roadSets.add(Collections.unmodifiableSet(roadSet));
+							roadSetIndexesBySet.put(roadSet, newRoadSetIndex);
+						}
+						newRoadSetIndexes.put(roadSetIndexes[cell], newRoadSetIndex);
+					}
+					roadSetIndexes[cell] = newRoadSetIndex;
+				}
+			}
+		}
+
+		enterMasks = new byte[cellCount];
+		for (int cell = 0; cell < cellCount; cell++) {
+			if (roadSetIndexes[cell] != 0) {
+				Point location = new Point(cell % width, cell / width);
+				for (Road road : roadSets.get(roadSetIndexes[cell])) {
+					for (Direction direction : DIRECTIONS) {
+						if (road.isRightSide(location, direction)) {
+							enterMasks[cell] |= getMask(direction);
+						}
+					}
+				}
+			}
+		}
+
+		this.trafficLights = new TrafficLight[0];
+		trafficLightIndexes = new int[cellCount];
+		Arrays.fill(trafficLightIndexes, NO_TRAFFIC_LIGHT);
+		for (TrafficLight trafficLight : trafficLights) {
+			addTrafficLight(trafficLight);
+		}
+	}
+
+	private RoadRaster(RoadRaster raster) {
+		width = raster.width;
+		height = raster.height;
+		roadSets = raster.roadSets;
+		roadSetIndexes = raster.roadSetIndexes;
+		enterMasks = raster.enterMasks;
+		trafficLights = raster.trafficLights;
+		trafficLightIndexes = raster.trafficLightIndexes.clone();
+	}
+
+	/**
+	 * Returns a copy of this raster that additionally has <code>trafficLight</code>. Road data is shared
+	 * with this raster.
+	 */
+	RoadRaster withTrafficLight(TrafficLight trafficLight) {
+		RoadRaster raster = new RoadRaster(this);
+		raster.addTrafficLight(trafficLight);
+		return raster;
+	}
+
+	private void addTrafficLight(TrafficLight trafficLight) {
+		Rectangle area = trafficLight.getArea().getArea();
+		for (int y = area.y; y < (area.y + area.height); y++) {
+			for (int x = area.x; x < (area.x + area.width); x++) {
+				if (trafficLightIndexes[y * width + x] != NO_TRAFFIC_LIGHT) {
+					throw new IllegalArgumentException("traffic lights must not overlap"); //$NON-NLS-1$
+				}
+			}
+		}
+
+		int trafficLightIndex = trafficLights.length;
+		trafficLights = Arrays.copyOf(trafficLights, trafficLightIndex + 1);
+		trafficLights[trafficLightIndex] = trafficLight;
+		for (int y = area.y; y < (area.y + area.height); y++) {
+			for (int x = area.x; x < (area.x + area.width); x++) {
+				trafficLightIndexes[y * width + x] = trafficLightIndex;
+			}
+		}
+	}
+
+	private static int getMask(Direction direction) {
+		return 1 << direction.ordinal();
+	}
+
+	int getCellCount() {
+		return enterMasks.length;
+	}
+
+	int toCell(Point location) {
+		return location.y * width + location.x;
+	}
+
+	boolean contains(Point location) {
+		return (location.x >= 0) && (location.x < width) && (location.y >= 0) && (location.y < height);
+	}
+
+	boolean isRoad(int cell) {
+		return roadSetIndexes[cell] != 0;
+	}
+
+	/** Returns the roads covering <code>cell</code>. The returned set must not be modified. */
+	Set<Road> getRoads(int cell) {
+		return roadSets.get(roadSetIndexes[cell]);
+	}
+
+	/**
+	 * Returns whether <code>cell</code> is on the right side of the road for vehicles heading to
+	 * <code>headedTo</code>.
+	 */
+	boolean canEnter(int cell, Direction headedTo) {
+		return (enterMasks[cell] & getMask(headedTo)) != 0;
+	}
+
+	/** Returns whether <code>cell</code> may be entered in any direction. */
+	boolean canEnter(int cell) {
+		return enterMasks[cell] != 0;
+	}
+
+	/** Returns the traffic light covering <code>cell</code>, or <code>null</code> if there is none. */
+	TrafficLight getTrafficLight(int cell) {
+		int trafficLightIndex = trafficLightIndexes[cell];
+		return (trafficLightIndex != NO_TRAFFIC_LIGHT) ? trafficLights[trafficLightIndex] : null;
+	}
+}
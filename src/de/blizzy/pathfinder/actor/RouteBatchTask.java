@@ -0,0 +1,63 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import org.eclipse.swt.graphics.Point;
+
+@SuppressWarnings("serial")
+class RouteBatchTask extends RecursiveAction {
+	private World world;
+	private int[] origins;
+	private int[][] queryIndexes;
+	private List<RouteQuery> queries;
+	private List<List<Point>> routes;
+	private int start;
+	private int end;
+
+	RouteBatchTask(World world, int[] origins, int[][] queryIndexes, List<RouteQuery> queries,
+			List<List<Point>> routes, int start, int end) {
+
+		this.world = world;
+		this.origins = origins;
+		this.queryIndexes = queryIndexes;
+		this.queries = queries;
+		this.routes = routes;
+		this.start = start;
+		this.end = end;
+	}
+
+	@Override
+	protected void compute() {
+		if ((end - start) <= 1) {
+			for (int i = start; i < end; i++) {
+				world.getShortestRoutes(origins[i], queryIndexes[i], queries, routes);
+			}
+		} else {
+			int middle = (start + end) >>> 1;
+			invokeAll(new RouteBatchTask(world, origins, queryIndexes, queries, routes, start, middle),
+					new RouteBatchTask(world, origins, queryIndexes, queries, routes, middle, end));
+		}
+	}
+}
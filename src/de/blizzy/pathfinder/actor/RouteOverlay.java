@@ -22,9 +22,10 @@ SOFTWARE.
 package de.blizzy.pathfinder.actor;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.eclipse.swt.graphics.Color;
 import org.eclipse.swt.graphics.GC;
 import org.eclipse.swt.graphics.Point;
 import org.eclipse.swt.graphics.RGB;
@@ -32,11 +33,16 @@ import org.eclipse.swt.graphics.Rectangle;
 
 public class RouteOverlay implements IDrawable {
 	private static final RGB COLOR = new RGB(100, 100, 255);
+	private static final RGB[] ALTERNATIVE_COLORS = {
+		new RGB(255, 160, 60),
+		new RGB(80, 200, 80),
+		new RGB(200, 90, 200)
+	};
 	private static final int ALPHA = 200;
 
 	private World world;
 	private ColorRegistry colorRegistry;
-	private Collection<Point> route;
+	private List<? extends Collection<Point>> routes = Collections.emptyList();
 	private AtomicBoolean mustRedraw = new AtomicBoolean(true);
 
 	public RouteOverlay(World world) {
@@ -58,15 +64,19 @@ public class RouteOverlay implements IDrawable {
 
 	@Override
 	public boolean paint(GC gc, int pass) {
-		if (route != null) {
-			Color color = colorRegistry.getColor(COLOR);
-			gc.setBackground(color);
+		List<? extends Collection<Point>> routes = this.routes;
+		if (!routes.isEmpty()) {
 			int oldAlpha = gc.getAlpha();
 			gc.setAlpha(ALPHA);
-			for (Point location : route) {
-				Area area = new Area(world, new Rectangle(location.x, location.y, 1, 1));
-				Rectangle drawArea = area.getDrawArea();
-				gc.fillRectangle(drawArea);
+			// draw the first route last so that it is on top
+			for (int i = routes.size() - 1; i >= 0; i--) {
+				RGB rgb = (i == 0) ? COLOR : ALTERNATIVE_COLORS[(i - 1) % ALTERNATIVE_COLORS.length];
+				gc.setBackground(colorRegistry.getColor(rgb));
+				for (Point location : routes.get(i)) {
+					Area area = new Area(world, new Rectangle(location.x, location.y, 1, 1));
+					Rectangle drawArea = area.getDrawArea();
+					gc.fillRectangle(drawArea);
+				}
 			}
 			gc.setAlpha(oldAlpha);
 			mustRedraw.set(false);
@@ -80,7 +90,15 @@ public class RouteOverlay implements IDrawable {
 	}
 
 	public void setRoute(Collection<Point> route) {
-		this.route = route;
+		setRoutes((route != null) ? Collections.singletonList(route) : Collections.<Collection<Point>>emptyList());
+	}
+
+	/**
+	 * Sets the routes to draw. The first route is drawn in the primary color, the other routes are
+	 * drawn in different colors below it.
+	 */
+	public void setRoutes(List<? extends Collection<Point>> routes) {
+		this.routes = (routes != null) ? routes : Collections.<Collection<Point>>emptyList();
 		mustRedraw.set(true);
 	}
 }
@@ -0,0 +1,77 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.actor;
+
+/**
+ * Trades route quality for search time. A policy finds routes at most {@link #getWeight()} times
+ * longer than the shortest routes. An anytime policy searches for at most {@link #getMaxMillis()}
+ * milliseconds in total, spending the time left after the first route on improving it. If there is
+ * no first route by then, no route is returned.
+ */
+public class RoutePolicy {
+	public static final RoutePolicy OPTIMAL = new RoutePolicy(1d, 0L);
+
+	static final double ANYTIME_WEIGHT_DECREMENT = 0.5d;
+
+	private double weight;
+	private long maxMillis;
+
+	private RoutePolicy(double weight, long maxMillis) {
+		this.weight = weight;
+		this.maxMillis = maxMillis;
+	}
+
+	public static RoutePolicy weighted(double weight) {
+		if (!(weight >= 1d)) {
+			throw new IllegalArgumentException("weight must be >= 1"); //$NON-NLS-1$
+		}
+
+		return new RoutePolicy(weight, 0L);
+	}
+
+	public static RoutePolicy anytime(double initialWeight, long maxMillis) {
+		if (!(initialWeight >= 1d)) {
+			throw new IllegalArgumentException("initial weight must be >= 1"); //$NON-NLS-1$
+		}
+		if (maxMillis <= 0) {
+			throw new IllegalArgumentException("maxMillis must be positive"); //$NON-NLS-1$
+		}
+
+		return new RoutePolicy(initialWeight, maxMillis);
+	}
+
+	public double getWeight() {
+		return weight;
+	}
+
+	public long getMaxMillis() {
+		return maxMillis;
+	}
+
+	public boolean isOptimal() {
+		return (weight == 1d) && (maxMillis == 0L);
+	}
+
+	public boolean isAnytime() {
+		return maxMillis > 0;
+	}
+}
@@ -100,6 +100,10 @@ public class TrafficLight implements IActor {
 		return area.contains(location);
 	}
 
+	Area getArea() {
+		return area;
+	}
+
 	boolean isAllowed(Direction comingFrom) {
 		boolean northSouthAllowed = this.northSouthAllowed.get();
 		return (northSouthAllowed && ((comingFrom == Direction.NORTH) || (comingFrom == Direction.SOUTH))) ||
@@ -37,60 +37,50 @@ final class TrafficUtil {
 			boolean checkTrafficLights, boolean checkRoadBlocks, boolean checkVehicles, boolean blocked, World world) {
 
 		Map<Direction, Point> directions = new HashMap<>(4);
-		Point newLocation;
-		if (headedTo != Direction.SOUTH) {
-			newLocation = new Point(location.x, location.y - 1);
-			if (isRoad(newLocation, world) &&
-				isRightSideOfRoad(newLocation, Direction.NORTH, world) &&
-				(world.isRoadBlockedAt(newLocation, Direction.SOUTH, location,
-						checkTrafficLights, checkRoadBlocks, checkVehicles) == blocked)) {
-
-				directions.put(Direction.NORTH, newLocation);
-			}
-		}
-		if (headedTo != Direction.EAST) {
-			newLocation = new Point(location.x - 1, location.y);
-			if (isRoad(newLocation, world) &&
-				isRightSideOfRoad(newLocation, Direction.WEST, world) &&
-				(world.isRoadBlockedAt(newLocation, Direction.EAST, location,
-						checkTrafficLights, checkRoadBlocks, checkVehicles) == blocked)) {
-
-				directions.put(Direction.WEST, newLocation);
-			}
-		}
-		if (headedTo != Direction.NORTH) {
-			newLocation = new Point(location.x, location.y + 1);
-			if (isRoad(newLocation, world) &&
-				isRightSideOfRoad(newLocation, Direction.SOUTH, world) &&
-				(world.isRoadBlockedAt(newLocation, Direction.NORTH, location,
-						checkTrafficLights, checkRoadBlocks, checkVehicles) == blocked)) {
-
-				directions.put(Direction.SOUTH, newLocation);
+		for (Direction direction : Direction.values()) {
+			if (direction.getOpposite() != headedTo) {
+				Point newLocation = direction.getAdjacentLocation(location);
+				if (isPossibleDirection(location, newLocation, direction,
+						checkTrafficLights, checkRoadBlocks, checkVehicles, blocked, world)) {
+
+					directions.put(direction, newLocation);
+				}
 			}
 		}
-		if (headedTo != Direction.WEST) {
-			newLocation = new Point(location.x + 1, location.y);
-			if (isRoad(newLocation, world) &&
-				isRightSideOfRoad(newLocation, Direction.EAST, world) &&
-				(world.isRoadBlockedAt(newLocation, Direction.WEST, location,
-						checkTrafficLights, checkRoadBlocks, checkVehicles) == blocked)) {
-
-				directions.put(Direction.EAST, newLocation);
+		return directions;
+	}
+
+	static Map<Direction, Point> getPossiblePrecedingDirections(Point location, Direction headedTo,
+			boolean checkTrafficLights, boolean checkRoadBlocks, boolean checkVehicles, World world) {
+
+		Map<Direction, Point> directions = new HashMap<>(4);
+		for (Direction direction : Direction.values()) {
+			if (direction.getOpposite() != headedTo) {
+				Point precedingLocation = direction.getOpposite().getAdjacentLocation(location);
+				if (isRoad(precedingLocation, world.getLaneGraph()) &&
+					isPossibleDirection(precedingLocation, location, direction,
+						checkTrafficLights, checkRoadBlocks, checkVehicles, false, world)) {
+
+					directions.put(direction, precedingLocation);
+				}
 			}
 		}
 		return directions;
 	}
 
-	static boolean isRoad(Point location, World world) {
-		return world.contains(location) && world.isRoadAt(location);
+	static boolean isPossibleDirection(Point location, Point newLocation, Direction direction,
+			boolean checkTrafficLights, boolean checkRoadBlocks, boolean checkVehicles, boolean blocked, World world) {
+
+		return canEnter(newLocation, direction, world.getLaneGraph()) &&
+				(world.isRoadBlockedAt(newLocation, direction.getOpposite(), location,
+						checkTrafficLights, checkRoadBlocks, checkVehicles) == blocked);
+	}
+
+	static boolean isRoad(Point location, LaneGraph laneGraph) {
+		return laneGraph.contains(location) && laneGraph.isRoad(laneGraph.toCell(location));
 	}
 
-	static boolean isRightSideOfRoad(Point location, Direction headedTo, World world) {
-		for (Road road : world.getRoadsAt(location)) {
-			if (road.isRightSide(location, headedTo)) {
-				return true;
-			}
-		}
-		return false;
+	static boolean canEnter(Point location, Direction headedTo, LaneGraph laneGraph) {
+		return laneGraph.contains(location) && laneGraph.canEnter(laneGraph.toCell(location), headedTo);
 	}
 }
@@ -54,6 +54,7 @@ public class Vehicle implements IActor {
 	private AtomicBoolean mustRedraw = new AtomicBoolean(true);
 	private long parkedTime;
 	private int framesPerStep = (int) (Math.random() * 4) + 2;
+	private Point destination;
 
 	public Vehicle(World world, Point location) {
 		if (!world.isRoadAt(location)) {
@@ -69,6 +70,7 @@ public class Vehicle implements IActor {
 
 	@Override
 	public void dispose() {
+		world.getCooperativePlanner().release(this);
 	}
 
 	@Override
@@ -120,6 +122,8 @@ public class Vehicle implements IActor {
 				}
 			}
 			if (rightMostSide) {
+				world.getCooperativePlanner().release(this);
+				world.setVehicleParking(location, true);
 				mode = Mode.PARK;
 				parkedTime = System.currentTimeMillis();
 				mustRedraw.set(true);
@@ -161,14 +165,55 @@ public class Vehicle implements IActor {
 				default:
 					throw new IllegalStateException();
 			}
-			if (!TrafficUtil.isRoad(newLocation, world) ||
-				!TrafficUtil.isRightSideOfRoad(newLocation, headedTo, world) ||
+			if (!TrafficUtil.canEnter(newLocation, headedTo, world.getLaneGraph()) ||
 				world.isRoadBlockedAt(newLocation, comingFrom, location, true, true, true)) {
 
 				newLocation = null;
 			}
 		}
 
+		// follow the cooperatively planned route to the destination
+		if ((newLocation == null) && (destination != null) && world.isCooperativeRouting()) {
+			if (location.equals(destination)) {
+				world.getCooperativePlanner().release(this);
+				destination = null;
+			} else {
+				Point nextLocation = world.getCooperativePlanner().getNextLocation(
+						this, location, headedTo, destination, framesPerStep);
+				if (nextLocation != null) {
+					if (nextLocation.equals(location)) {
+						// wait for a cell reserved by another vehicle
+						return;
+					}
+
+					Direction direction = Direction.getHeadedTo(location, nextLocation);
+					newLocation = possibleDirections.get(direction);
+					if (newLocation == null) {
+						// wait for the way to clear, the route is planned again next time
+						return;
+					}
+					headedTo = direction;
+				}
+			}
+		}
+
+		// follow the shortest route to the destination
+		if ((newLocation == null) && (destination != null)) {
+			Direction direction = world.getNextDirection(location, destination);
+			if (direction != null) {
+				headedTo = direction;
+				newLocation = possibleDirections.get(direction);
+				if (newLocation == null) {
+					// wait for the way to clear
+					return;
+				}
+			} else {
+				// arrived, or destination not reachable
+				world.getCooperativePlanner().release(this);
+				destination = null;
+			}
+		}
+
 		// change direction if necessary or per random chance
 		if ((newLocation == null) && !possibleDirections.isEmpty() &&
 			(!canGoInSameDirection || changeDirection)) {
@@ -188,6 +233,7 @@ public class Vehicle implements IActor {
 		}
 
 		if (newLocation != null) {
+			world.moveVehicle(location, newLocation);
 			location = newLocation;
 			mustRedraw.set(true);
 		}
@@ -195,6 +241,7 @@ public class Vehicle implements IActor {
 
 	private void park() {
 		if ((System.currentTimeMillis() - parkedTime) >= PARK_DURATION) {
+			world.setVehicleParking(location, false);
 			mode = Mode.DRIVE;
 			mustRedraw.set(true);
 		}
@@ -214,6 +261,11 @@ public class Vehicle implements IActor {
 		return location;
 	}
 
+	public synchronized void setDestination(Point destination) {
+		world.getCooperativePlanner().release(this);
+		this.destination = destination;
+	}
+
 	public boolean isParking() {
 		return mode == Mode.PARK;
 	}
@@ -23,15 +23,17 @@ package de.blizzy.pathfinder.actor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.swt.SWT;
@@ -50,20 +52,42 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Display;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import de.blizzy.pathfinder.Direction;
-import de.blizzy.pathfinder.route.AStar;
-import de.blizzy.pathfinder.route.IAStarFunctions;
-import de.blizzy.pathfinder.route.INode;
-import de.blizzy.pathfinder.route.RouteNode;
+import de.blizzy.pathfinder.route.AlternativeRoutes;
+import de.blizzy.pathfinder.route.AnytimeAStar;
+import de.blizzy.pathfinder.route.AnytimeRoute;
+import de.blizzy.pathfinder.route.CooperativeAStar;
+import de.blizzy.pathfinder.route.DStarLite;
+import de.blizzy.pathfinder.route.Dijkstra;
+import de.blizzy.pathfinder.route.DirectedGraph;
+import de.blizzy.pathfinder.route.FlowField;
+import de.blizzy.pathfinder.route.IndexedAStar;
+import de.blizzy.pathfinder.route.IndexedRoute;
+import de.blizzy.pathfinder.route.ReservationTable;
+import de.blizzy.pathfinder.route.RouteCache;
+import de.blizzy.pathfinder.route.SearchBudget;
+import de.blizzy.pathfinder.route.SearchContext;
+import de.blizzy.pathfinder.route.SearchStatistics;
+import de.blizzy.pathfinder.route.SpaceTimeRoute;
+import de.blizzy.pathfinder.route.StronglyConnectedComponents;
 
 public class World implements IDrawable {
 	static final int ANIMATION_FRAMES_PER_SECOND = 100;
 	static final int REDRAW_FRAMES_PER_SECOND = 60;
 	static final int CELL_PIXEL_SIZE = 7;
 	static final int CELL_SPACING = 1;
+	static final int ROUTE_CACHE_SIZE = 1024;
+	static final int FLOW_FIELD_CACHE_SIZE = 16;
+	static final int DEFAULT_CELL_COST = 1;
+	static final int MAX_CELL_COST = 255;
+	static final double ALTERNATIVE_ROUTE_PENALTY = 0.2d;
+	static final double ALTERNATIVE_ROUTE_MAX_STRETCH = 1.4d;
+	static final double ALTERNATIVE_ROUTE_MAX_SHARING = 0.7d;
 
 	private static final RGB COLOR = new RGB(100, 30, 0);
 
@@ -76,19 +100,57 @@ public class World implements IDrawable {
 	private IActor[] actors = new IActor[0];
 	private Road[] roads = new Road[0];
 	private Vehicle[] vehicles = new Vehicle[0];
+	private TrafficLight[] trafficLights = new TrafficLight[0];
+	// actors other than vehicles, road blocks and traffic lights that can block roads
+	private IActor[] otherBlockingActors = new IActor[0];
 	private Timer timer = new Timer();
 	private boolean initialPaint;
 	private DoubleBuffer doubleBuffer;
-	private Map<Point, Set<Road>> roadsAtCache = new HashMap<>();
-	private Map<Point, Boolean> isRoadAtCache = new HashMap<>();
+	private volatile int[] cellCosts;
+	private OccupancyGrid occupancyGrid;
 	private AtomicBoolean paused = new AtomicBoolean();
 	private List<IClickListener> clickListeners = new ArrayList<>();
+	private List<IRoadBlockListener> roadBlockListeners = new ArrayList<>();
+	private GridRouteFunctions gridRouteFunctions;
+	private HeadingRouteFunctions headingRouteFunctions;
+	private CooperativePlanner cooperativePlanner;
+	private volatile boolean cooperativeRouting = true;
+	private volatile long frame;
+	private IndexedAStar aStar = new IndexedAStar();
+	private Object routeGraphLock = new Object();
+	private volatile RoadRaster roadRaster;
+	private volatile LaneGraph laneGraph;
+	private volatile DirectedGraph roadGraph;
+	private volatile StronglyConnectedComponents components;
+	private RouteCache routeCache = new RouteCache(ROUTE_CACHE_SIZE);
+	private ListeningExecutorService routeExecutor = MoreExecutors.listeningDecorator(Executors.newSingleThreadExecutor(
+			new ThreadFactoryBuilder().setNameFormat("route-%d").setDaemon(true).build())); //$NON-NLS-1$
+	private ListenableFuture<List<Point>> pendingRoute;
+	@SuppressWarnings("serial")
+	private Map<Integer, FlowField> flowFields = new LinkedHashMap<Integer, FlowField>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, FlowField> eldest) {
+			return size() > FLOW_FIELD_CACHE_SIZE;
+		}
+	};
+	private ThreadLocal<SearchContext> searchContexts = new ThreadLocal<SearchContext>() {
+		@Override
+		protected SearchContext initialValue() {
+			return new SearchContext();
+		}
+	};
 
 	public World(Composite parent, int width, int height) {
 		this.width = width;
 		this.height = height;
 
+		cellCosts = new int[width * height];
+		Arrays.fill(cellCosts, DEFAULT_CELL_COST);
+		occupancyGrid = new OccupancyGrid(width * height);
 		trafficDensity = new TrafficDensity(this);
+		gridRouteFunctions = new GridRouteFunctions(this);
+		headingRouteFunctions = new HeadingRouteFunctions(this, gridRouteFunctions);
+		cooperativePlanner = new CooperativePlanner(this, gridRouteFunctions);
 		colorRegistry = new ColorRegistry(parent.getDisplay());
 
 		canvas = new Canvas(parent, SWT.BORDER | SWT.NO_BACKGROUND);
@@ -151,6 +213,7 @@ public class World implements IDrawable {
 
 	private void handleDispose() {
 		timer.cancel();
+		routeExecutor.shutdownNow();
 		for (IDrawable drawable : drawables) {
 			drawable.dispose();
 		}
@@ -163,6 +226,12 @@ public class World implements IDrawable {
 		return (point.x >= 0) && (point.x < width) && (point.y >= 0) && (point.y < height);
 	}
 
+	private void checkContains(Point location) {
+		if (!contains(location)) {
+			throw new IllegalArgumentException("location is outside of the world: " + location); //$NON-NLS-1$
+		}
+	}
+
 	private void paint(GC gc, Rectangle damagedRegion) {
 		if (!initialPaint || mustRedrawAllObjects()) {
 			paint(doubleBuffer.getGC(), 0);
@@ -219,6 +288,17 @@ public class World implements IDrawable {
 	}
 
 	void add(IDrawable drawable) {
+		// overlapping traffic lights are rejected here, before anything else is changed
+		if (drawable instanceof TrafficLight) {
+			TrafficLight trafficLight = (TrafficLight) drawable;
+			synchronized (routeGraphLock) {
+				roadRaster = getRoadRaster().withTrafficLight(trafficLight);
+				List<TrafficLight> newTrafficLights = new ArrayList<>(Arrays.asList(trafficLights));
+				newTrafficLights.add(trafficLight);
+				trafficLights = newTrafficLights.toArray(new TrafficLight[0]);
+			}
+		}
+
 		List<IDrawable> newDrawables = new ArrayList<>(Arrays.asList(drawables));
 		newDrawables.add(drawable);
 		Collections.sort(newDrawables, DrawableLayerComparator.INSTANCE);
@@ -235,12 +315,41 @@ public class World implements IDrawable {
 			List<Road> newRoads = new ArrayList<>(Arrays.asList(roads));
 			newRoads.add((Road) drawable);
 			roads = newRoads.toArray(new Road[0]);
+			synchronized (routeGraphLock) {
+				roadRaster = null;
+			}
+			resetRouteGraphs();
+		}
+
+		if (drawable instanceof RoadBlock) {
+			Point location = ((RoadBlock) drawable).getLocation();
+			occupancyGrid.addRoadBlock(gridRouteFunctions.toNode(location));
+			routeCache.invalidate(gridRouteFunctions.toNode(location));
+			synchronized (routeGraphLock) {
+				components = null;
+			}
+			synchronized (flowFields) {
+				for (FlowField flowField : flowFields.values()) {
+					flowField.setBlocked(gridRouteFunctions.toNode(location), true);
+				}
+			}
+			fireRoadBlockAdded(location);
 		}
 
 		if (drawable instanceof Vehicle) {
+			Vehicle vehicle = (Vehicle) drawable;
 			List<Vehicle> newVehicles = new ArrayList<>(Arrays.asList(vehicles));
-			newVehicles.add((Vehicle) drawable);
+			newVehicles.add(vehicle);
 			vehicles = newVehicles.toArray(new Vehicle[0]);
+			occupancyGrid.addVehicle(gridRouteFunctions.toNode(vehicle.getLocation()), vehicle.isParking());
+		}
+
+		if ((drawable instanceof IActor) && !(drawable instanceof Vehicle) && !(drawable instanceof RoadBlock) &&
+				!(drawable instanceof TrafficLight) && ((IActor) drawable).canBlockRoad()) {
+
+			List<IActor> newOtherBlockingActors = new ArrayList<>(Arrays.asList(otherBlockingActors));
+			newOtherBlockingActors.add((IActor) drawable);
+			otherBlockingActors = newOtherBlockingActors.toArray(new IActor[0]);
 		}
 	}
 
@@ -248,20 +357,10 @@ public class World implements IDrawable {
 		return colorRegistry;
 	}
 
+	/** Returns the roads at <code>location</code>. The returned set must not be modified. */
 	Set<Road> getRoadsAt(Point location) {
-		synchronized (roadsAtCache) {
-			Set<Road> roads = roadsAtCache.get(location);
-			if (roads == null) {
-				roads = new HashSet<>(2);
-				for (Road road : this.roads) {
-					if (road.contains(location)) {
-						roads.add(road);
-					}
-				}
-				roadsAtCache.put(location, roads);
-			}
-			return roads;
-		}
+		RoadRaster roadRaster = getRoadRaster();
+		return roadRaster.contains(location) ? roadRaster.getRoads(roadRaster.toCell(location)) : Collections.<Road>emptySet();
 	}
 
 	Road[] getAllRoads() {
@@ -273,23 +372,12 @@ public class World implements IDrawable {
 	}
 
 	boolean isRoadAt(Point location) {
-		synchronized (isRoadAtCache) {
-			Boolean isRoad = isRoadAtCache.get(location);
-			if (isRoad == null) {
-				isRoad = false;
-				for (Road road : roads) {
-					if (road.contains(location)) {
-						isRoad = true;
-						break;
-					}
-				}
-				isRoadAtCache.put(location, isRoad);
-			}
-			return isRoad;
-		}
+		RoadRaster roadRaster = getRoadRaster();
+		return roadRaster.contains(location) && roadRaster.isRoad(roadRaster.toCell(location));
 	}
 
 	private void animateWorld() {
+		frame++;
 		for (IActor actor : actors) {
 			actor.animate();
 		}
@@ -311,6 +399,62 @@ public class World implements IDrawable {
 		}
 	}
 
+	private void resetRouteGraphs() {
+		synchronized (routeGraphLock) {
+			laneGraph = null;
+			components = null;
+		}
+		resetWeightedRouteGraphs();
+	}
+
+	// everything that depends on cell costs rather than on road topology alone
+	private void resetWeightedRouteGraphs() {
+		synchronized (routeGraphLock) {
+			roadGraph = null;
+		}
+		routeCache.clear();
+		synchronized (flowFields) {
+			flowFields.clear();
+		}
+	}
+
+	/**
+	 * Returns the cost of moving into each cell, indexed by node. All route searches use these costs.
+	 * The returned array must not be modified. It is never modified by the world either: changing a
+	 * cost replaces the array, so that graphs built from the returned array stay consistent.
+	 */
+	int[] getCellCosts() {
+		return cellCosts;
+	}
+
+	public int getCellCost(Point location) {
+		checkContains(location);
+		return cellCosts[gridRouteFunctions.toNode(location)];
+	}
+
+	/**
+	 * Sets the cost of moving into the cell at <code>location</code>, for example to penalize crossings
+	 * with traffic lights or congested roads. All route graphs that depend on costs are rebuilt when
+	 * needed next.
+	 */
+	public void setCellCost(Point location, int cost) {
+		if ((cost < 1) || (cost > MAX_CELL_COST)) {
+			throw new IllegalArgumentException("cost must be between 1 and " + MAX_CELL_COST); //$NON-NLS-1$
+		}
+		checkContains(location);
+
+		int node = gridRouteFunctions.toNode(location);
+		synchronized (routeGraphLock) {
+			if (cellCosts[node] == cost) {
+				return;
+			}
+			int[] newCellCosts = cellCosts.clone();
+			newCellCosts[node] = cost;
+			cellCosts = newCellCosts;
+		}
+		resetWeightedRouteGraphs();
+	}
+
 	int getWidth() {
 		return width;
 	}
@@ -322,40 +466,52 @@ public class World implements IDrawable {
 	boolean isRoadBlockedAt(Point location, Direction comingFrom, Point currentLocation, boolean checkTrafficLights,
 			boolean checkRoadBlocks, boolean checkVehicles) {
 
-		for (IActor actor : actors) {
-			if (actor instanceof TrafficLight) {
-				if (checkTrafficLights) {
-					TrafficLight trafficLight = (TrafficLight) actor;
-					if (!trafficLight.contains(currentLocation)) {
-						if (trafficLight.contains(location) && !trafficLight.isAllowed(comingFrom)) {
-							return true;
-						}
-					}
-				}
-			} else if (actor instanceof RoadBlock) {
-				if (checkRoadBlocks && actor.contains(location)) {
-					return true;
-				}
-			} else if (actor instanceof Vehicle) {
-				if (checkVehicles && actor.contains(location)) {
-					return true;
-				}
-			} else if (actor.canBlockRoad() && actor.contains(location)) {
+		if (!contains(location)) {
+			return false;
+		}
+
+		int cell = gridRouteFunctions.toNode(location);
+		if (checkTrafficLights) {
+			TrafficLight trafficLight = getRoadRaster().getTrafficLight(cell);
+			if ((trafficLight != null) && !trafficLight.contains(currentLocation) && !trafficLight.isAllowed(comingFrom)) {
 				return true;
 			}
 		}
-		return false;
+		if ((checkRoadBlocks && occupancyGrid.isRoadBlockAt(cell)) || (checkVehicles && occupancyGrid.isVehicleAt(cell))) {
+			return true;
+		}
+		return isBlockedByOtherActor(location);
 	}
 
-	boolean isParkingVehicleAt(Point location) {
-		for (Vehicle vehicle : vehicles) {
-			if (vehicle.contains(location) && vehicle.isParking()) {
+	/** Returns whether <code>cell</code> is blocked by a road block, not looking at vehicles or traffic lights. */
+	boolean isRoadBlockedAt(int cell) {
+		if (occupancyGrid.isRoadBlockAt(cell)) {
+			return true;
+		}
+		return (otherBlockingActors.length > 0) && isBlockedByOtherActor(gridRouteFunctions.toLocation(cell));
+	}
+
+	private boolean isBlockedByOtherActor(Point location) {
+		for (IActor actor : otherBlockingActors) {
+			if (actor.contains(location)) {
 				return true;
 			}
 		}
 		return false;
 	}
 
+	boolean isParkingVehicleAt(Point location) {
+		return contains(location) && occupancyGrid.isParkingVehicleAt(gridRouteFunctions.toNode(location));
+	}
+
+	void moveVehicle(Point fromLocation, Point toLocation) {
+		occupancyGrid.moveVehicle(gridRouteFunctions.toNode(fromLocation), gridRouteFunctions.toNode(toLocation));
+	}
+
+	void setVehicleParking(Point location, boolean parking) {
+		occupancyGrid.setVehicleParking(gridRouteFunctions.toNode(location), parking);
+	}
+
 	public void forceCompleteRedraw() {
 		initialPaint = false;
 	}
@@ -391,59 +547,465 @@ public class World implements IDrawable {
 		}
 	}
 
+	public void addRoadBlockListener(IRoadBlockListener listener) {
+		synchronized (roadBlockListeners) {
+			roadBlockListeners.add(listener);
+		}
+	}
+
+	public void removeRoadBlockListener(IRoadBlockListener listener) {
+		synchronized (roadBlockListeners) {
+			roadBlockListeners.remove(listener);
+		}
+	}
+
+	private void fireRoadBlockAdded(Point location) {
+		List<IRoadBlockListener> listeners;
+		synchronized (roadBlockListeners) {
+			listeners = new ArrayList<>(roadBlockListeners);
+		}
+		RoadBlockEvent event = new RoadBlockEvent(this, location);
+		for (IRoadBlockListener listener : listeners) {
+			listener.roadBlockAdded(event);
+		}
+	}
+
+	GridRouteFunctions getGridRouteFunctions() {
+		return gridRouteFunctions;
+	}
+
 	TrafficDensity getTrafficDensity() {
 		return trafficDensity;
 	}
 
-	public List<Point> getShortestRoute(Point originLocation, final Point targetLocation) {
-		RouteNode origin = new RouteNode(originLocation);
-		RouteNode target = new RouteNode(targetLocation);
-		IAStarFunctions aStarFunctions = new IAStarFunctions() {
-			@Override
-			public double getEstimatedDistanceToTarget(INode node) {
-				RouteNode routeNode = (RouteNode) node;
-				Point location = routeNode.getLocation();
-				int x = Math.abs(targetLocation.x - location.x);
-				int y = Math.abs(targetLocation.y - location.y);
-				return Math.sqrt(Math.pow(x, 2d) + Math.pow(y, 2d));
+	public List<Point> getShortestRoute(Point originLocation, Point targetLocation) {
+		return getShortestRoute(originLocation, targetLocation, null, null);
+	}
+
+	/**
+	 * Returns the shortest route and fills in <code>statistics</code> about the search. The route cache
+	 * is not consulted, so that there always is a search to describe.
+	 */
+	public List<Point> getShortestRouteWithStatistics(Point originLocation, Point targetLocation,
+			SearchStatistics statistics) {
+		return getShortestRoute(originLocation, targetLocation, null, statistics);
+	}
+
+	private List<Point> getShortestRoute(Point originLocation, Point targetLocation, SearchBudget budget,
+			SearchStatistics statistics) {
+
+		if (!contains(originLocation) || !contains(targetLocation)) {
+			return null;
+		}
+
+		int origin = gridRouteFunctions.toNode(originLocation);
+		int target = gridRouteFunctions.toNode(targetLocation);
+		int[] route = (statistics == null) ? routeCache.get(origin, target) : null;
+		if ((route == null) && !getComponents().isReachable(origin, target)) {
+			route = RouteCache.NO_ROUTE;
+		}
+		if (route == null) {
+			route = headingRouteFunctions.toCells(aStar.getShortestRoute(headingRouteFunctions.toState(origin),
+					headingRouteFunctions.toState(target), headingRouteFunctions, searchContexts.get(), budget,
+					statistics, null));
+			if ((budget == null) || !budget.isExhausted()) {
+				routeCache.put(origin, target, route);
 			}
+		} else if (route == RouteCache.NO_ROUTE) {
+			route = null;
+		}
+		return toLocations(route);
+	}
+
+	/**
+	 * Returns a route that is at most as long as <code>policy</code> allows. Cached shortest routes
+	 * satisfy any policy, but only shortest routes are added to the cache. With an anytime policy, this
+	 * returns <code>null</code> if not even a first route could be found within the policy's time, and
+	 * the next call searches again.
+	 */
+	public List<Point> getShortestRoute(Point originLocation, Point targetLocation, RoutePolicy policy) {
+		if (policy.isOptimal()) {
+			return getShortestRoute(originLocation, targetLocation);
+		}
 
-			@Override
-			public double getDistance(INode node1, INode node2) {
-				return 1d;
+		if (!contains(originLocation) || !contains(targetLocation)) {
+			return null;
+		}
+
+		int origin = gridRouteFunctions.toNode(originLocation);
+		int target = gridRouteFunctions.toNode(targetLocation);
+		int[] route = routeCache.get(origin, target);
+		if ((route == null) && !getComponents().isReachable(origin, target)) {
+			route = RouteCache.NO_ROUTE;
+		}
+		if (route == null) {
+			if (policy.isAnytime()) {
+				AnytimeAStar anytimeAStar = new AnytimeAStar(policy.getWeight(), RoutePolicy.ANYTIME_WEIGHT_DECREMENT);
+				SearchBudget budget = new SearchBudget(Integer.MAX_VALUE, policy.getMaxMillis());
+				AnytimeRoute anytimeRoute = anytimeAStar.getShortestRoute(headingRouteFunctions.toState(origin),
+						headingRouteFunctions.toState(target), headingRouteFunctions, budget, null);
+				route = (anytimeRoute != null) ? headingRouteFunctions.toCells(anytimeRoute.getRoute()) : null;
+				// running out of time before the first route does not mean there is no route
+				if ((anytimeRoute != null) ? anytimeRoute.isOptimal() : !budget.isExhausted()) {
+					routeCache.put(origin, target, route);
+				}
+			} else {
+				route = headingRouteFunctions.toCells(new IndexedAStar(policy.getWeight()).getShortestRoute(
+						headingRouteFunctions.toState(origin), headingRouteFunctions.toState(target),
+						headingRouteFunctions, searchContexts.get()));
+				if (route == null) {
+					routeCache.put(origin, target, null);
+				}
 			}
+		} else if (route == RouteCache.NO_ROUTE) {
+			route = null;
+		}
+		return toLocations(route);
+	}
+
+	/**
+	 * Computes the shortest route in the background. The search stops after
+	 * <code>maxExpansions</code> expanded cells or <code>maxMillis</code> milliseconds, in which case
+	 * the returned future fails with a {@link TimeoutException}. Requesting a new route cancels the
+	 * previously requested one if it has not completed yet.
+	 */
+	public ListenableFuture<List<Point>> getShortestRouteAsync(final Point originLocation, final Point targetLocation,
+			int maxExpansions, long maxMillis) {
 
+		final SearchBudget budget = new SearchBudget(maxExpansions, maxMillis);
+		final ListenableFuture<List<Point>> future = routeExecutor.submit(new Callable<List<Point>>() {
 			@Override
-			public Set<INode> getAdjacentNodes(INode node, INode precedingNode) {
-				Point location = ((RouteNode) node).getLocation();
-				Direction headedTo = null;
-				if (precedingNode != null) {
-					Point precedingLocation = ((RouteNode) precedingNode).getLocation();
-					headedTo = Direction.getHeadedTo(precedingLocation, location);
+			public List<Point> call() throws TimeoutException {
+				List<Point> route = getShortestRoute(originLocation, targetLocation, budget, null);
+				if (budget.isExhausted()) {
+					throw new TimeoutException("route search budget exhausted"); //$NON-NLS-1$
 				}
-				Collection<Point> possibleDirections = TrafficUtil.getPossibleDirections(
-						location, headedTo, false, true, false, false, World.this).values();
-				Set<INode> successors = new HashSet<>();
-				for (Point successorLocation : possibleDirections) {
-					successors.add(new RouteNode(successorLocation));
+				return route;
+			}
+		});
+		future.addListener(new Runnable() {
+			@Override
+			public void run() {
+				if (future.isCancelled()) {
+					budget.cancel();
 				}
-				return successors;
 			}
-		};
-		List<INode> route = new AStar().getShortestRoute(origin, target, aStarFunctions);
+		}, MoreExecutors.sameThreadExecutor());
+
+		ListenableFuture<List<Point>> previousRoute;
+		synchronized (routeExecutor) {
+			previousRoute = pendingRoute;
+			pendingRoute = future;
+		}
+		if (previousRoute != null) {
+			previousRoute.cancel(false);
+		}
+		return future;
+	}
+
+	/**
+	 * Computes the shortest routes for all <code>queries</code> in parallel on <code>pool</code>.
+	 * Queries that share an origin are served by a single search. The returned list contains the
+	 * routes in the order of <code>queries</code>, with <code>null</code> for queries without a route.
+	 */
+	public List<List<Point>> getShortestRoutes(List<RouteQuery> queries, ForkJoinPool pool) {
+		Map<Integer, List<Integer>> queryIndexesByOrigin = new LinkedHashMap<>();
+		for (int i = 0; i < queries.size(); i++) {
+			RouteQuery query = queries.get(i);
+			if (!contains(query.getOrigin()) || !contains(query.getTarget())) {
+				// leaves the route null
+				continue;
+			}
+
+			Integer origin = Integer.valueOf(gridRouteFunctions.toNode(query.getOrigin()));
+			List<Integer> queryIndexes = queryIndexesByOrigin.get(origin);
+			if (queryIndexes == null) {
+				queryIndexes = new ArrayList<>();
+				queryIndexesByOrigin.put(origin, queryIndexes);
+			}
+			queryIndexes.add(Integer.valueOf(i));
+		}
+
+		int[] origins = new int[queryIndexesByOrigin.size()];
+		int[][] queryIndexes = new int[origins.length][];
+		int i = 0;
+		for (Map.Entry<Integer, List<Integer>> entry : queryIndexesByOrigin.entrySet()) {
+			origins[i] = entry.getKey().intValue();
+			List<Integer> indexes = entry.getValue();
+			queryIndexes[i] = new int[indexes.size()];
+			for (int j = 0; j < queryIndexes[i].length; j++) {
+				queryIndexes[i][j] = indexes.get(j).intValue();
+			}
+			i++;
+		}
+
+		List<List<Point>> routes = new ArrayList<>(Collections.<List<Point>>nCopies(queries.size(), null));
+		pool.invoke(new RouteBatchTask(this, origins, queryIndexes, queries, routes, 0, origins.length));
+		return routes;
+	}
+
+	void getShortestRoutes(int origin, int[] queryIndexes, List<RouteQuery> queries, List<List<Point>> routes) {
+		int[] targets = new int[queryIndexes.length];
+		int[] uncachedQueryIndexes = new int[queryIndexes.length];
+		int uncachedCount = 0;
+		StronglyConnectedComponents components = getComponents();
+		for (int queryIndex : queryIndexes) {
+			int target = gridRouteFunctions.toNode(queries.get(queryIndex).getTarget());
+			int[] route = routeCache.get(origin, target);
+			// a single unreachable target would make the search visit every reachable cell
+			if ((route == null) && !components.isReachable(origin, target)) {
+				route = RouteCache.NO_ROUTE;
+			}
+			if (route != null) {
+				routes.set(queryIndex, (route != RouteCache.NO_ROUTE) ? toLocations(route) : null);
+			} else {
+				targets[uncachedCount] = target;
+				uncachedQueryIndexes[uncachedCount] = queryIndex;
+				uncachedCount++;
+			}
+		}
+
+		if (uncachedCount > 0) {
+			int[] targetStates = new int[uncachedCount];
+			for (int i = 0; i < uncachedCount; i++) {
+				targetStates[i] = headingRouteFunctions.toState(targets[i]);
+			}
+			int[][] uncachedRoutes = aStar.getShortestRoutes(headingRouteFunctions.toState(origin), targetStates,
+					headingRouteFunctions, searchContexts.get());
+			for (int i = 0; i < uncachedCount; i++) {
+				int[] route = headingRouteFunctions.toCells(uncachedRoutes[i]);
+				routeCache.put(origin, targets[i], route);
+				routes.set(uncachedQueryIndexes[i], toLocations(route));
+			}
+		}
+	}
+
+	/**
+	 * Returns up to <code>maxRoutes</code> distinct routes from <code>originLocation</code> to
+	 * <code>targetLocation</code>, the shortest route first. Alternative routes are at most 40% longer
+	 * than the shortest route, and share at most 70% of their locations with the routes before them.
+	 * The returned list is empty if there is no route.
+	 */
+	public List<Route> getAlternativeRoutes(Point originLocation, Point targetLocation, int maxRoutes) {
+		if (!contains(originLocation) || !contains(targetLocation)) {
+			return Collections.emptyList();
+		}
+
+		int origin = gridRouteFunctions.toNode(originLocation);
+		int target = gridRouteFunctions.toNode(targetLocation);
+		if (!getComponents().isReachable(origin, target)) {
+			return Collections.emptyList();
+		}
+
+		// the road graph knows neither headings nor road blocks, so its distances are lower bounds
+		double[] distancesToTarget = headingRouteFunctions.toStates(
+				new Dijkstra().getDistancesToTarget(getRoadGraph(), target));
+		AlternativeRoutes alternativeRoutes = new AlternativeRoutes(ALTERNATIVE_ROUTE_PENALTY,
+				ALTERNATIVE_ROUTE_MAX_STRETCH, ALTERNATIVE_ROUTE_MAX_SHARING);
+		List<IndexedRoute> indexedRoutes = alternativeRoutes.getRoutes(headingRouteFunctions.toState(origin),
+				headingRouteFunctions.toState(target), maxRoutes, headingRouteFunctions, distancesToTarget,
+				searchContexts.get());
+		List<Route> routes = new ArrayList<>(indexedRoutes.size());
+		for (IndexedRoute indexedRoute : indexedRoutes) {
+			routes.add(new Route(toLocations(headingRouteFunctions.toCells(indexedRoute.getNodes())),
+					indexedRoute.getDistance()));
+		}
+		return routes;
+	}
+
+	public RouteCache getRouteCache() {
+		return routeCache;
+	}
+
+	private List<Point> toLocations(int[] route) {
 		if (route != null) {
-			Function<INode, Point> function = new Function<INode, Point>() {
-				@Override
-				public Point apply(INode node) {
-					return ((RouteNode) node).getLocation();
-				}
-			};
-			return new ArrayList<>(Lists.transform(route, function));
+			List<Point> locations = new ArrayList<>(route.length);
+			for (int node : route) {
+				locations.add(gridRouteFunctions.toLocation(node));
+			}
+			return locations;
 		} else {
 			return null;
 		}
 	}
 
+	RoadRaster getRoadRaster() {
+		RoadRaster roadRaster = this.roadRaster;
+		if (roadRaster == null) {
+			synchronized (routeGraphLock) {
+				roadRaster = this.roadRaster;
+				if (roadRaster == null) {
+					roadRaster = new RoadRaster(width, height, roads, trafficLights);
+					this.roadRaster = roadRaster;
+				}
+			}
+		}
+		return roadRaster;
+	}
+
+	LaneGraph getLaneGraph() {
+		LaneGraph laneGraph = this.laneGraph;
+		if (laneGraph == null) {
+			synchronized (routeGraphLock) {
+				laneGraph = this.laneGraph;
+				if (laneGraph == null) {
+					laneGraph = new LaneGraph(this);
+					this.laneGraph = laneGraph;
+				}
+			}
+		}
+		return laneGraph;
+	}
+
+	DirectedGraph getRoadGraph() {
+		DirectedGraph roadGraph = this.roadGraph;
+		if (roadGraph == null) {
+			synchronized (routeGraphLock) {
+				roadGraph = this.roadGraph;
+				if (roadGraph == null) {
+					roadGraph = gridRouteFunctions.createRoadGraph();
+					this.roadGraph = roadGraph;
+				}
+			}
+		}
+		return roadGraph;
+	}
+
+	SpaceTimeRoute getCooperativeRoute(CooperativeAStar cooperativeAStar, int origin, int precedingNode, int target,
+			ReservationTable reservations, int owner, long startFrame, int stepFrames) {
+
+		DirectedGraph roadGraph = getRoadGraph();
+		synchronized (flowFields) {
+			return cooperativeAStar.getRoute(origin, precedingNode, roadGraph, getFlowField(target), reservations, owner,
+					startFrame, stepFrames);
+		}
+	}
+
+	CooperativePlanner getCooperativePlanner() {
+		return cooperativePlanner;
+	}
+
+	/**
+	 * Sets whether vehicles with a destination plan their next steps cooperatively, reserving the cells
+	 * they will pass and avoiding the cells reserved by others. Otherwise they follow the shortest
+	 * route and wait whenever it is blocked.
+	 */
+	public void setCooperativeRouting(boolean cooperativeRouting) {
+		this.cooperativeRouting = cooperativeRouting;
+	}
+
+	public boolean isCooperativeRouting() {
+		return cooperativeRouting;
+	}
+
+	long getFrame() {
+		return frame;
+	}
+
+	private FlowField getFlowField(int target) {
+		Integer key = Integer.valueOf(target);
+		FlowField flowField = flowFields.get(key);
+		if (flowField == null) {
+			flowField = new FlowField(getRoadGraph(), cellCosts, target, getBlockedNodes());
+			flowFields.put(key, flowField);
+		}
+		return flowField;
+	}
+
+	// locations of all road blocks, as nodes
+	private int[] getBlockedNodes() {
+		List<Integer> blockedNodes = new ArrayList<>();
+		for (IActor actor : actors) {
+			if (actor instanceof RoadBlock) {
+				blockedNodes.add(Integer.valueOf(gridRouteFunctions.toNode(((RoadBlock) actor).getLocation())));
+			}
+		}
+		int[] blocked = new int[blockedNodes.size()];
+		for (int i = 0; i < blocked.length; i++) {
+			blocked[i] = blockedNodes.get(i).intValue();
+		}
+		return blocked;
+	}
+
+	StronglyConnectedComponents getComponents() {
+		StronglyConnectedComponents components = this.components;
+		if (components == null) {
+			DirectedGraph roadGraph = getRoadGraph();
+			synchronized (routeGraphLock) {
+				components = this.components;
+				if (components == null) {
+					components = new StronglyConnectedComponents(roadGraph, getBlockedNodes());
+					this.components = components;
+				}
+			}
+		}
+		return components;
+	}
+
+	/**
+	 * Returns whether there may be a route from <code>originLocation</code> to
+	 * <code>targetLocation</code>. This does not search for a route and is O(1) for most locations.
+	 * Locations for which this returns <code>false</code> are never reachable; heading restrictions
+	 * may still make reachable locations unreachable.
+	 */
+	public boolean isReachable(Point originLocation, Point targetLocation) {
+		return contains(originLocation) && contains(targetLocation) && getComponents().isReachable(
+				gridRouteFunctions.toNode(originLocation), gridRouteFunctions.toNode(targetLocation));
+	}
+
+	/**
+	 * Returns the road location nearest to <code>location</code>, or <code>null</code> if there are
+	 * no roads.
+	 */
+	public Point getNearestRoadLocation(Point location) {
+		if (!contains(location)) {
+			return null;
+		}
+
+		LaneGraph laneGraph = getLaneGraph();
+		int cell = laneGraph.getNearestRoadCell(laneGraph.toCell(location));
+		return (cell >= 0) ? gridRouteFunctions.toLocation(cell) : null;
+	}
+
+	/**
+	 * Creates a route from <code>originLocation</code> to <code>targetLocation</code> that is repaired
+	 * incrementally when road blocks are added. The route must be disposed when it is no longer needed.
+	 */
+	public IncrementalRoute createIncrementalRoute(Point originLocation, Point targetLocation) {
+		checkContains(originLocation);
+		checkContains(targetLocation);
+
+		DStarLite search = new DStarLite(getRoadGraph(), gridRouteFunctions,
+				gridRouteFunctions.toNode(originLocation), gridRouteFunctions.toNode(targetLocation));
+		IncrementalRoute route = new IncrementalRoute(this, gridRouteFunctions, search);
+		addRoadBlockListener(route);
+		for (IActor actor : actors) {
+			if (actor instanceof RoadBlock) {
+				route.roadBlockAdded(new RoadBlockEvent(this, ((RoadBlock) actor).getLocation()));
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * Returns the direction to go from <code>location</code> to reach <code>targetLocation</code> on the
+	 * shortest route, or <code>null</code> if <code>location</code> is the target or if there is no
+	 * route. Routes to the same target are shared, so this is cheap for many vehicles heading for the
+	 * same place.
+	 */
+	public Direction getNextDirection(Point location, Point targetLocation) {
+		if (!contains(location) || !contains(targetLocation)) {
+			return null;
+		}
+
+		int node = gridRouteFunctions.toNode(location);
+		int nextNode;
+		synchronized (flowFields) {
+			nextNode = getFlowField(gridRouteFunctions.toNode(targetLocation)).getNextNode(node);
+		}
+		return (nextNode >= 0) ? gridRouteFunctions.getHeadedTo(node, nextNode) : null;
+	}
+
 	public void redraw() {
 		initialPaint = true;
 		canvas.redraw();
@@ -23,99 +23,171 @@ package de.blizzy.pathfinder.route;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 public class AStar {
+	private double weight;
+
 	public AStar() {
+		this(1d);
+	}
+
+	/**
+	 * Creates a weighted A* search. Estimated distances to target are multiplied by
+	 * <code>weight</code>, which makes the search faster, but the routes found may be up to
+	 * <code>weight</code> times longer than the shortest routes.
+	 */
+	public AStar(double weight) {
+		if (!(weight >= 1d)) {
+			throw new IllegalArgumentException("weight must be >= 1"); //$NON-NLS-1$
+		}
+
+		this.weight = weight;
+	}
+
+	public double getWeight() {
+		return weight;
 	}
 
 	public List<INode> getShortestRoute(INode origin, INode target, IAStarFunctions function) {
-		final Map<INode, Double> distancesFromOriginToTarget = new HashMap<>();
-		Map<INode, Double> distancesFromOriginToNode = new HashMap<>();
-		Comparator<INode> openNodesComparator = new Comparator<INode>() {
-			@Override
-			public int compare(INode n1, INode n2) {
-				Double d1 = distancesFromOriginToTarget.get(n1);
-				if (d1 == null) {
-					d1 = 0d;
-				}
-				Double d2 = distancesFromOriginToTarget.get(n2);
-				if (d2 == null) {
-					d2 = 0d;
-				}
-				return d1.compareTo(d2);
-			}
-		};
-		List<INode> openNodes = new ArrayList<>();
-		Set<INode> closedNodes = new HashSet<>();
-		closedNodes.add(origin);
-		Map<INode, INode> predecessors = new HashMap<>();
+		return getShortestRoute(origin, target, function, null, null);
+	}
 
-		distancesFromOriginToNode.put(origin, 0d);
-		openNodes.add(origin);
+	/**
+	 * Returns the shortest route from <code>origin</code> to <code>target</code>, or <code>null</code>
+	 * if there is no route. The search fills in <code>statistics</code> and reports each expanded node
+	 * to <code>listener</code>. Both may be <code>null</code>.
+	 */
+	public List<INode> getShortestRoute(INode origin, INode target, IAStarFunctions function,
+			SearchStatistics statistics, ISearchListener listener) {
+
+		if (statistics != null) {
+			statistics.start();
+		}
+		List<INode> route = search(origin, target, function, statistics, listener);
+		if (statistics != null) {
+			statistics.finish((route != null) ? route.size() : 0);
+		}
+		return route;
+	}
+
+	private List<INode> search(INode origin, INode target, IAStarFunctions function, SearchStatistics statistics,
+			ISearchListener listener) {
+
+		Map<INode, NodeEntry> nodes = new HashMap<>();
+		NodeHeap openNodes = new NodeHeap();
+		Expansion expansion = new Expansion(function, weight, nodes, openNodes, statistics);
+		IVisitingAStarFunctions visitingFunction = (function instanceof IVisitingAStarFunctions) ?
+				(IVisitingAStarFunctions) function : null;
+
+		NodeEntry originEntry = new NodeEntry(origin);
+		originEntry.setClosed(true);
+		nodes.put(origin, originEntry);
+		openNodes.add(originEntry);
 
 		do {
-			INode currentNode = openNodes.remove(0);
-			distancesFromOriginToTarget.remove(currentNode);
+			NodeEntry currentEntry = openNodes.removeFirst();
 
-			if (currentNode.equals(target)) {
-				return toRoute(target, predecessors);
+			if (currentEntry.getNode().equals(target)) {
+				return toRoute(currentEntry);
 			}
 
-			closedNodes.add(currentNode);
+			currentEntry.setClosed(true);
 
-			expandNode(currentNode, function, distancesFromOriginToTarget, distancesFromOriginToNode,
-					openNodes, openNodesComparator, closedNodes, predecessors);
+			if (statistics != null) {
+				statistics.nodeExpanded();
+			}
+			if (listener != null) {
+				listener.nodeExpanded(currentEntry.getNode(), currentEntry.getDistanceFromOrigin());
+			}
+
+			INode currentNode = currentEntry.getNode();
+			NodeEntry predecessorEntry = currentEntry.getPredecessor();
+			INode predecessorOfCurrentNode = (predecessorEntry != null) ? predecessorEntry.getNode() : null;
+			expansion.setCurrentEntry(currentEntry);
+			if (visitingFunction != null) {
+				visitingFunction.visitAdjacentNodes(currentNode, predecessorOfCurrentNode, expansion);
+			} else {
+				for (INode successor : function.getAdjacentNodes(currentNode, predecessorOfCurrentNode)) {
+					expansion.visit(successor, function.getDistance(currentNode, successor));
+				}
+			}
 		} while (!openNodes.isEmpty());
 
 		return null;
 	}
 
-	private void expandNode(INode currentNode, IAStarFunctions function, Map<INode, Double> distancesFromOriginToTarget,
-			Map<INode, Double> distancesFromOriginToNode, List<INode> openNodes, Comparator<INode> openNodesComparator,
-			Set<INode> closedNodes, Map<INode, INode> predecessors) {
+	private List<INode> toRoute(NodeEntry targetEntry) {
+		List<INode> route = new ArrayList<>();
+		NodeEntry entry = targetEntry;
+		while (entry != null) {
+			route.add(entry.getNode());
+			entry = entry.getPredecessor();
+		}
 
-		INode predecessorOfCurrentNode = predecessors.get(currentNode);
-		for (INode successor : function.getAdjacentNodes(currentNode, predecessorOfCurrentNode)) {
-			if (closedNodes.contains(successor)) {
-				continue;
-			}
+		Collections.reverse(route);
+		return route;
+	}
+
+	private static class Expansion implements IAdjacentNodeVisitor {
+		private IAStarFunctions function;
+		private double weight;
+		private Map<INode, NodeEntry> nodes;
+		private NodeHeap openNodes;
+		private SearchStatistics statistics;
+		private NodeEntry currentEntry;
+
+		Expansion(IAStarFunctions function, double weight, Map<INode, NodeEntry> nodes, NodeHeap openNodes,
+				SearchStatistics statistics) {
+
+			this.function = function;
+			this.weight = weight;
+			this.nodes = nodes;
+			this.openNodes = openNodes;
+			this.statistics = statistics;
+		}
 
-			double distanceFromCurrentToSuccessor = function.getDistance(currentNode, successor);
-			double newDistanceFromOriginToSuccessor = distancesFromOriginToNode.get(currentNode) + distanceFromCurrentToSuccessor;
+		void setCurrentEntry(NodeEntry currentEntry) {
+			this.currentEntry = currentEntry;
+		}
 
-			boolean open = openNodes.contains(successor);
-			if (open && (newDistanceFromOriginToSuccessor >= distancesFromOriginToNode.get(successor))) {
-				continue;
+		@Override
+		public void visit(INode successor, double distanceFromCurrentToSuccessor) {
+			NodeEntry successorEntry = nodes.get(successor);
+			if ((successorEntry != null) && successorEntry.isClosed()) {
+				return;
 			}
 
-			predecessors.put(successor, currentNode);
-			distancesFromOriginToNode.put(successor, newDistanceFromOriginToSuccessor);
+			double newDistanceFromOriginToSuccessor = currentEntry.getDistanceFromOrigin() + distanceFromCurrentToSuccessor;
+
+			boolean open = successorEntry != null;
+			if (open && (newDistanceFromOriginToSuccessor >= successorEntry.getDistanceFromOrigin())) {
+				return;
+			}
 
-			double estimatedDistanceFromSuccessorToTarget = function.getEstimatedDistanceToTarget(successor);
-			double newDistanceFromOriginToTarget = newDistanceFromOriginToSuccessor + estimatedDistanceFromSuccessorToTarget;
-			distancesFromOriginToTarget.put(successor, newDistanceFromOriginToTarget);
 			if (!open) {
-				openNodes.add(successor);
-				Collections.sort(openNodes, openNodesComparator);
+				successorEntry = new NodeEntry(successor);
+				nodes.put(successor, successorEntry);
 			}
-		}
-	}
+			successorEntry.setPredecessor(currentEntry);
+			successorEntry.setDistanceFromOrigin(newDistanceFromOriginToSuccessor);
 
-	private List<INode> toRoute(INode target, Map<INode, INode> predecessors) {
-		List<INode> route = new ArrayList<>();
-		INode node = target;
-		while (node != null) {
-			route.add(node);
-			node = predecessors.get(node);
+			double estimatedDistanceFromSuccessorToTarget = function.getEstimatedDistanceToTarget(successor);
+			double newDistanceFromOriginToTarget = newDistanceFromOriginToSuccessor + weight * estimatedDistanceFromSuccessorToTarget;
+			successorEntry.setDistanceFromOriginToTarget(newDistanceFromOriginToTarget);
+			if (open) {
+				openNodes.decreaseKey(successorEntry);
+				if (statistics != null) {
+					statistics.nodeImproved();
+				}
+			} else {
+				openNodes.add(successorEntry);
+				if (statistics != null) {
+					statistics.nodeGenerated(openNodes.size());
+				}
+			}
 		}
-
-		Collections.reverse(route);
-		return route;
 	}
 }
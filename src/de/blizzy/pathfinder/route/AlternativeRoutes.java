@@ -0,0 +1,119 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds alternative routes using the penalty method: after each route found, the nodes on the route
+ * become more expensive, and the next search finds a route that avoids them where it is cheap to do
+ * so. Routes that are too long or that share too many nodes with routes found before are dropped.
+ * <p>
+ * All searches share a single table of remaining distances to the target, computed once from a
+ * reverse shortest-path tree. Since penalties only make routes longer, the table is a valid
+ * estimate for every search, and guides them so well that each search expands only a few nodes
+ * more than there are on its route.
+ */
+public class AlternativeRoutes {
+	private static final int MAX_SEARCHES_PER_ROUTE = 4;
+
+	private double penalty;
+	private double maxStretch;
+	private double maxSharing;
+
+	/**
+	 * @param penalty the factor by which entering a node gets more expensive each time it is on a route
+	 * @param maxStretch the factor by which alternative routes may be longer than the shortest route
+	 * @param maxSharing the fraction of an alternative route's nodes that may be on routes found before
+	 */
+	public AlternativeRoutes(double penalty, double maxStretch, double maxSharing) {
+		if (!(penalty > 0d)) {
+			throw new IllegalArgumentException("penalty must be positive"); //$NON-NLS-1$
+		}
+		if (!(maxStretch >= 1d)) {
+			throw new IllegalArgumentException("maxStretch must be >= 1"); //$NON-NLS-1$
+		}
+		if (!(maxSharing >= 0d) || (maxSharing >= 1d)) {
+			throw new IllegalArgumentException("maxSharing must be >= 0 and < 1"); //$NON-NLS-1$
+		}
+
+		this.penalty = penalty;
+		this.maxStretch = maxStretch;
+		this.maxSharing = maxSharing;
+	}
+
+	/**
+	 * Returns up to <code>maxRoutes</code> distinct routes from <code>origin</code> to
+	 * <code>target</code>, the shortest route first. <code>distancesToTarget</code> must contain, for
+	 * each node, the distance to <code>target</code> or a lower bound of it, with
+	 * {@link Double#POSITIVE_INFINITY} for nodes that cannot reach <code>target</code>. The returned
+	 * list is empty if there is no route.
+	 */
+	public List<IndexedRoute> getRoutes(int origin, int target, int maxRoutes, IIndexedAStarFunctions function,
+			double[] distancesToTarget, SearchContext context) {
+
+		if (maxRoutes <= 0) {
+			throw new IllegalArgumentException("maxRoutes must be positive"); //$NON-NLS-1$
+		}
+
+		List<IndexedRoute> routes = new ArrayList<>(maxRoutes);
+		PenalizedFunctions penalizedFunction = new PenalizedFunctions(function, distancesToTarget);
+		boolean[] onRoute = new boolean[function.getNodeCount()];
+		IndexedAStar aStar = new IndexedAStar();
+		double maxDistance = Double.POSITIVE_INFINITY;
+		for (int search = 0; (search < (maxRoutes * MAX_SEARCHES_PER_ROUTE)) && (routes.size() < maxRoutes); search++) {
+			int[] nodes = aStar.getShortestRoute(origin, target, penalizedFunction, context);
+			if (nodes == null) {
+				break;
+			}
+
+			double distance = 0d;
+			for (int i = 1; i < nodes.length; i++) {
+				distance += function.getDistance(nodes[i - 1], nodes[i]);
+			}
+			int sharedNodes = 0;
+			for (int node : nodes) {
+				if (onRoute[node]) {
+					sharedNodes++;
+				}
+				penalizedFunction.penalize(node, penalty);
+			}
+
+			if (routes.isEmpty() || ((distance <= maxDistance) && (sharedNodes <= (maxSharing * nodes.length)))) {
+				routes.add(new IndexedRoute(nodes, distance));
+				for (int node : nodes) {
+					onRoute[node] = true;
+				}
+				if (routes.size() == 1) {
+					maxDistance = distance * maxStretch;
+				}
+			}
+
+			if (nodes.length == 1) {
+				// origin is the target
+				break;
+			}
+		}
+		return routes;
+	}
+}
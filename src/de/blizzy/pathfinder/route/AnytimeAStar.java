@@ -0,0 +1,246 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Anytime Repairing A* (ARA*). The search quickly finds a route using a weighted estimate, then
+ * repeatedly lowers the weight and improves the route, reusing the work done so far instead of
+ * starting over. Each route found comes with a bound on how much longer it may be than the shortest
+ * route.
+ */
+public class AnytimeAStar {
+	private double initialWeight;
+	private double weightDecrement;
+
+	public AnytimeAStar(double initialWeight, double weightDecrement) {
+		if (!(initialWeight >= 1d)) {
+			throw new IllegalArgumentException("initial weight must be >= 1"); //$NON-NLS-1$
+		}
+		if (!(weightDecrement > 0d)) {
+			throw new IllegalArgumentException("weight decrement must be positive"); //$NON-NLS-1$
+		}
+
+		this.initialWeight = initialWeight;
+		this.weightDecrement = weightDecrement;
+	}
+
+	/**
+	 * Returns the best route from <code>origin</code> to <code>target</code> that could be found
+	 * within <code>budget</code>, or <code>null</code> if there is no route or if the budget has been
+	 * exhausted before a first route was found. The budget covers the search for the first route as
+	 * well as the searches that improve it. Every route found is reported to <code>listener</code>.
+	 * The budget and listener may be <code>null</code>.
+	 */
+	public AnytimeRoute getShortestRoute(int origin, int target, IIndexedAStarFunctions function, SearchBudget budget,
+			IAnytimeListener listener) {
+
+		if (((function instanceof IIndexedTargetFunctions) ?
+				((IIndexedTargetFunctions) function).getTargetNode(origin) : origin) == target) {
+
+			AnytimeRoute route = new AnytimeRoute(new int[] { origin }, 0d, 1d);
+			if (listener != null) {
+				listener.routeImproved(route);
+			}
+			return route;
+		}
+
+		if (budget != null) {
+			budget.start();
+		}
+		Search search = new Search(origin, target, function, initialWeight);
+		if (!search.improveRoute(budget) || !search.hasRoute()) {
+			return null;
+		}
+
+		AnytimeRoute route = search.toRoute();
+		if (listener != null) {
+			listener.routeImproved(route);
+		}
+
+		double weight = initialWeight;
+		while (route.getBound() > 1d) {
+			weight = Math.max(1d, weight - weightDecrement);
+			search.setWeight(weight);
+			if (!search.improveRoute(budget)) {
+				break;
+			}
+
+			route = search.toRoute();
+			if (listener != null) {
+				listener.routeImproved(route);
+			}
+		}
+		return route;
+	}
+
+	private static class Search {
+		private int target;
+		private int targetNode;
+		private IIndexedAStarFunctions function;
+		private IIndexedTargetFunctions targetFunction;
+		private double weight;
+		private double[] distancesFromOrigin;
+		private int[] predecessors;
+		private int[] closedGenerations;
+		private int generation = 1;
+		private boolean[] inconsistent;
+		private int[] inconsistentNodes = new int[16];
+		private int inconsistentNodeCount;
+		private int[] nodesBuffer = new int[16];
+		private IntHeap openNodes;
+		private int[] adjacentNodes;
+		private long nextSequence;
+
+		Search(int origin, int target, IIndexedAStarFunctions function, double weight) {
+			this.target = target;
+			this.function = function;
+			this.weight = weight;
+			targetNode = target;
+			targetFunction = (function instanceof IIndexedTargetFunctions) ? (IIndexedTargetFunctions) function : null;
+
+			int nodeCount = function.getNodeCount();
+			distancesFromOrigin = new double[nodeCount];
+			Arrays.fill(distancesFromOrigin, Double.POSITIVE_INFINITY);
+			predecessors = new int[nodeCount];
+			closedGenerations = new int[nodeCount];
+			inconsistent = new boolean[nodeCount];
+			openNodes = new IntHeap(nodeCount);
+			adjacentNodes = new int[function.getMaxAdjacentNodes()];
+
+			distancesFromOrigin[origin] = 0d;
+			predecessors[origin] = IndexedAStar.NO_NODE;
+			openNodes.add(origin, getKey(origin), nextSequence++);
+		}
+
+		boolean improveRoute(SearchBudget budget) {
+			while (!openNodes.isEmpty() && (distancesFromOrigin[targetNode] > openNodes.getFirstKey())) {
+				if ((budget != null) && !budget.expand()) {
+					return false;
+				}
+
+				int node = openNodes.removeFirst();
+				closedGenerations[node] = generation;
+				expandNode(node);
+			}
+			return true;
+		}
+
+		private void expandNode(int node) {
+			int adjacentNodeCount = function.getAdjacentNodes(node, predecessors[node], adjacentNodes);
+			for (int i = 0; i < adjacentNodeCount; i++) {
+				int successor = adjacentNodes[i];
+				double distanceFromOrigin = distancesFromOrigin[node] + function.getDistance(node, successor);
+				if (distanceFromOrigin >= distancesFromOrigin[successor]) {
+					continue;
+				}
+
+				distancesFromOrigin[successor] = distanceFromOrigin;
+				predecessors[successor] = node;
+				if ((targetFunction != null) && (distanceFromOrigin < distancesFromOrigin[targetNode]) &&
+						(targetFunction.getTargetNode(successor) == target)) {
+
+					targetNode = successor;
+				}
+
+				if (closedGenerations[successor] == generation) {
+					// closed nodes are not expanded again in this iteration, but in the next one
+					if (!inconsistent[successor]) {
+						inconsistent[successor] = true;
+						if (inconsistentNodeCount == inconsistentNodes.length) {
+							inconsistentNodes = Arrays.copyOf(inconsistentNodes, inconsistentNodeCount * 2);
+						}
+						inconsistentNodes[inconsistentNodeCount++] = successor;
+					}
+				} else if (openNodes.contains(successor)) {
+					openNodes.update(successor, getKey(successor), openNodes.getSecondaryKey(successor));
+				} else {
+					openNodes.add(successor, getKey(successor), nextSequence++);
+				}
+			}
+		}
+
+		void setWeight(double weight) {
+			this.weight = weight;
+
+			int openNodeCount = openNodes.size();
+			if (nodesBuffer.length < openNodeCount) {
+				nodesBuffer = new int[openNodeCount];
+			}
+			for (int i = 0; i < openNodeCount; i++) {
+				nodesBuffer[i] = openNodes.getNodeAt(i);
+			}
+			openNodes.clear();
+			for (int i = 0; i < openNodeCount; i++) {
+				int node = nodesBuffer[i];
+				openNodes.add(node, getKey(node), nextSequence++);
+			}
+
+			for (int i = 0; i < inconsistentNodeCount; i++) {
+				int node = inconsistentNodes[i];
+				inconsistent[node] = false;
+				if (!openNodes.contains(node)) {
+					openNodes.add(node, getKey(node), nextSequence++);
+				}
+			}
+			inconsistentNodeCount = 0;
+
+			generation++;
+		}
+
+		boolean hasRoute() {
+			return distancesFromOrigin[targetNode] != Double.POSITIVE_INFINITY;
+		}
+
+		AnytimeRoute toRoute() {
+			int length = 0;
+			for (int node = targetNode; node != IndexedAStar.NO_NODE; node = predecessors[node]) {
+				length++;
+			}
+
+			int[] route = new int[length];
+			for (int node = targetNode, i = length - 1; node != IndexedAStar.NO_NODE; node = predecessors[node], i--) {
+				route[i] = node;
+			}
+			return new AnytimeRoute(route, distancesFromOrigin[targetNode], getBound());
+		}
+
+		private double getBound() {
+			double distance = distancesFromOrigin[targetNode];
+			double minDistance = distance;
+			for (int i = openNodes.size() - 1; i >= 0; i--) {
+				int node = openNodes.getNodeAt(i);
+				minDistance = Math.min(minDistance, distancesFromOrigin[node] + function.getEstimatedDistanceToTarget(node, target));
+			}
+			for (int i = 0; i < inconsistentNodeCount; i++) {
+				int node = inconsistentNodes[i];
+				minDistance = Math.min(minDistance, distancesFromOrigin[node] + function.getEstimatedDistanceToTarget(node, target));
+			}
+			return Math.max(1d, Math.min(weight, distance / minDistance));
+		}
+
+		private double getKey(int node) {
+			return distancesFromOrigin[node] + (weight * function.getEstimatedDistanceToTarget(node, target));
+		}
+	}
+}
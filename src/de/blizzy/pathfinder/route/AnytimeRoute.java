@@ -0,0 +1,58 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * A route found by {@link AnytimeAStar}, together with its length and the factor by which it may be
+ * longer than the shortest route.
+ */
+public class AnytimeRoute {
+	private int[] route;
+	private double distance;
+	private double bound;
+
+	AnytimeRoute(int[] route, double distance, double bound) {
+		this.route = route;
+		this.distance = distance;
+		this.bound = bound;
+	}
+
+	public int[] getRoute() {
+		return route;
+	}
+
+	public double getDistance() {
+		return distance;
+	}
+
+	/**
+	 * Returns the suboptimality bound of this route. The route is at most this many times longer than
+	 * the shortest route. A bound of 1 means the route is a shortest route.
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	public boolean isOptimal() {
+		return bound <= 1d;
+	}
+}
@@ -0,0 +1,196 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bidirectional A*. The forward search expands successors from the origin, the backward search
+ * expands predecessors from the target. Both use the average of the estimates to target and to
+ * origin as their potential, which keeps them consistent with each other, so that the search may
+ * stop as soon as the smallest keys of both frontiers add up to the best route found so far.
+ */
+public class BidirectionalAStar {
+	private static class Search {
+		private Map<INode, NodeEntry> nodes = new HashMap<>();
+		private NodeHeap openNodes = new NodeHeap();
+		private double potentialSign;
+
+		Search(double potentialSign) {
+			this.potentialSign = potentialSign;
+		}
+	}
+
+	private static class Query {
+		private IBidirectionalAStarFunctions function;
+		private Search forward = new Search(1d);
+		private Search backward = new Search(-1d);
+		private double bestDistance = Double.POSITIVE_INFINITY;
+		private List<INode> bestRoute;
+
+		Query(IBidirectionalAStarFunctions function) {
+			this.function = function;
+		}
+
+		List<INode> run(INode origin, INode target) {
+			addOrigin(forward, origin);
+			addOrigin(backward, target);
+
+			while (!forward.openNodes.isEmpty() && !backward.openNodes.isEmpty()) {
+				double minDistance = forward.openNodes.getFirst().getDistanceFromOriginToTarget() +
+						backward.openNodes.getFirst().getDistanceFromOriginToTarget();
+				if (minDistance >= bestDistance) {
+					break;
+				}
+
+				if (forward.openNodes.size() <= backward.openNodes.size()) {
+					expandForward(forward.openNodes.removeFirst());
+				} else {
+					expandBackward(backward.openNodes.removeFirst());
+				}
+			}
+
+			return bestRoute;
+		}
+
+		private void addOrigin(Search search, INode node) {
+			NodeEntry entry = new NodeEntry(node);
+			entry.setClosed(true);
+			entry.setDistanceFromOriginToTarget(getPotential(search, node));
+			search.nodes.put(node, entry);
+			search.openNodes.add(entry);
+		}
+
+		private void expandForward(NodeEntry currentEntry) {
+			currentEntry.setClosed(true);
+
+			INode currentNode = currentEntry.getNode();
+			INode predecessorOfCurrentNode = getNode(currentEntry.getPredecessor());
+			for (INode successor : function.getAdjacentNodes(currentNode, predecessorOfCurrentNode)) {
+				double distance = function.getDistance(currentNode, successor);
+				NodeEntry backwardEntry = backward.nodes.get(successor);
+				if (backwardEntry != null) {
+					meet(currentEntry, backwardEntry,
+							currentEntry.getDistanceFromOrigin() + distance + backwardEntry.getDistanceFromOrigin());
+				}
+				relax(forward, currentEntry, successor, distance);
+			}
+		}
+
+		private void expandBackward(NodeEntry currentEntry) {
+			currentEntry.setClosed(true);
+
+			INode currentNode = currentEntry.getNode();
+			INode followingNode = getNode(currentEntry.getPredecessor());
+			for (INode predecessor : function.getPrecedingNodes(currentNode, followingNode)) {
+				double distance = function.getDistance(predecessor, currentNode);
+				NodeEntry forwardEntry = forward.nodes.get(predecessor);
+				if (forwardEntry != null) {
+					meet(forwardEntry, currentEntry,
+							forwardEntry.getDistanceFromOrigin() + distance + currentEntry.getDistanceFromOrigin());
+				}
+				relax(backward, currentEntry, predecessor, distance);
+			}
+		}
+
+		private void relax(Search search, NodeEntry currentEntry, INode node, double distance) {
+			NodeEntry entry = search.nodes.get(node);
+			if ((entry != null) && entry.isClosed()) {
+				return;
+			}
+
+			double newDistanceFromOrigin = currentEntry.getDistanceFromOrigin() + distance;
+			boolean open = entry != null;
+			if (open && (newDistanceFromOrigin >= entry.getDistanceFromOrigin())) {
+				return;
+			}
+
+			if (!open) {
+				entry = new NodeEntry(node);
+				search.nodes.put(node, entry);
+			}
+			entry.setPredecessor(currentEntry);
+			entry.setDistanceFromOrigin(newDistanceFromOrigin);
+			entry.setDistanceFromOriginToTarget(newDistanceFromOrigin + getPotential(search, node));
+			if (open) {
+				search.openNodes.decreaseKey(entry);
+			} else {
+				search.openNodes.add(entry);
+			}
+		}
+
+		private void meet(NodeEntry forwardEntry, NodeEntry backwardEntry, double distance) {
+			if (distance >= bestDistance) {
+				return;
+			}
+
+			// make sure that the forward route may actually continue into the backward route
+			INode forwardNode = forwardEntry.getNode();
+			INode backwardNode = backwardEntry.getNode();
+			if (!function.getAdjacentNodes(forwardNode, getNode(forwardEntry.getPredecessor())).contains(backwardNode)) {
+				return;
+			}
+			INode followingNode = getNode(backwardEntry.getPredecessor());
+			if ((followingNode != null) &&
+				!function.getAdjacentNodes(backwardNode, forwardNode).contains(followingNode)) {
+
+				return;
+			}
+
+			// entries that are still open may change their predecessors later, so keep a copy of the route
+			List<INode> route = new ArrayList<>();
+			for (NodeEntry entry = forwardEntry; entry != null; entry = entry.getPredecessor()) {
+				route.add(entry.getNode());
+			}
+			Collections.reverse(route);
+			for (NodeEntry entry = backwardEntry; entry != null; entry = entry.getPredecessor()) {
+				route.add(entry.getNode());
+			}
+
+			bestDistance = distance;
+			bestRoute = route;
+		}
+
+		private double getPotential(Search search, INode node) {
+			double potential = (function.getEstimatedDistanceToTarget(node) - function.getEstimatedDistanceToOrigin(node)) / 2d;
+			return potential * search.potentialSign;
+		}
+
+		private static INode getNode(NodeEntry entry) {
+			return (entry != null) ? entry.getNode() : null;
+		}
+	}
+
+	public BidirectionalAStar() {
+	}
+
+	public List<INode> getShortestRoute(INode origin, INode target, IBidirectionalAStarFunctions function) {
+		if (origin.equals(target)) {
+			return Collections.singletonList(origin);
+		}
+		return new Query(function).run(origin, target);
+	}
+}
@@ -0,0 +1,97 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * One-to-all Dijkstra over a {@link DirectedGraph} with integer costs, using a bucket queue instead
+ * of a binary heap. The graph's edge costs are not used. Instead, moving into a node costs that
+ * node's entry in <code>nodeCosts</code>, which must be positive. Distances of unreachable nodes
+ * are {@link #UNREACHABLE}.
+ */
+public class BucketDijkstra {
+	public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+	public BucketDijkstra() {
+	}
+
+	public int[] getDistancesFromOrigin(DirectedGraph graph, int[] nodeCosts, int origin) {
+		return getDistances(graph, nodeCosts, origin, false);
+	}
+
+	public int[] getDistancesToTarget(DirectedGraph graph, int[] nodeCosts, int target) {
+		return getDistances(graph, nodeCosts, target, true);
+	}
+
+	private int[] getDistances(DirectedGraph graph, int[] nodeCosts, int node, boolean reverse) {
+		int nodeCount = graph.getNodeCount();
+		if (nodeCosts.length != nodeCount) {
+			throw new IllegalArgumentException("nodeCosts must have one entry per node"); //$NON-NLS-1$
+		}
+
+		int[] distances = new int[nodeCount];
+		Arrays.fill(distances, UNREACHABLE);
+		BucketQueue openNodes = new BucketQueue(nodeCount, getMaxCost(nodeCosts));
+
+		distances[node] = 0;
+		openNodes.add(node, 0);
+		while (!openNodes.isEmpty()) {
+			int currentNode = openNodes.removeFirst();
+			int distance = distances[currentNode];
+			if (reverse) {
+				// all edges from preceding nodes lead into the current node
+				int newDistance = distance + nodeCosts[currentNode];
+				int end = graph.getFirstReverseEdge(currentNode + 1);
+				for (int edge = graph.getFirstReverseEdge(currentNode); edge < end; edge++) {
+					relax(graph.getReverseEdgeSource(edge), newDistance, distances, openNodes);
+				}
+			} else {
+				int end = graph.getFirstEdge(currentNode + 1);
+				for (int edge = graph.getFirstEdge(currentNode); edge < end; edge++) {
+					int nextNode = graph.getEdgeTarget(edge);
+					relax(nextNode, distance + nodeCosts[nextNode], distances, openNodes);
+				}
+			}
+		}
+		return distances;
+	}
+
+	static int getMaxCost(int[] nodeCosts) {
+		int maxCost = 0;
+		for (int cost : nodeCosts) {
+			maxCost = Math.max(maxCost, cost);
+		}
+		return maxCost;
+	}
+
+	private void relax(int node, int distance, int[] distances, BucketQueue openNodes) {
+		if (distance < distances[node]) {
+			distances[node] = distance;
+			if (openNodes.contains(node)) {
+				openNodes.update(node, distance);
+			} else {
+				openNodes.add(node, distance);
+			}
+		}
+	}
+}
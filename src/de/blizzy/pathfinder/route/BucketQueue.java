@@ -0,0 +1,144 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Bucket queue of int nodes with non-negative int keys, as used in Dial's algorithm. Keys must not be
+ * smaller than the key of the node removed last, nor larger by more than <code>maxKeyStep</code>, as
+ * in Dijkstra searches whose costs are at most <code>maxKeyStep</code>. Adding a key outside of that
+ * range to an empty queue starts a new range. The queue therefore only needs
+ * <code>maxKeyStep + 1</code> buckets, which are used circularly, so memory use does not depend on
+ * how large the keys grow. Each bucket holds a doubly linked list of nodes, so adding a node,
+ * changing its key and removing it are O(1). Finding the first node scans at most all buckets.
+ */
+class BucketQueue {
+	private static final int NO_NODE = -1;
+	private static final int NO_KEY = -1;
+
+	private int[] keys;
+	private int[] nextNodes;
+	private int[] previousNodes;
+	private int[] firstNodes;
+	// all keys in the queue are between this one and this one plus maxKeyStep
+	private int minKey;
+	// no key in the queue is smaller than this one
+	private int firstKey;
+	private int size;
+
+	BucketQueue(int nodeCount, int maxKeyStep) {
+		if (maxKeyStep < 0) {
+			throw new IllegalArgumentException("maxKeyStep must be >= 0"); //$NON-NLS-1$
+		}
+
+		keys = new int[nodeCount];
+		nextNodes = new int[nodeCount];
+		previousNodes = new int[nodeCount];
+		firstNodes = new int[maxKeyStep + 1];
+		Arrays.fill(keys, NO_KEY);
+		Arrays.fill(firstNodes, NO_NODE);
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int node) {
+		return keys[node] != NO_KEY;
+	}
+
+	int getKey(int node) {
+		return keys[node];
+	}
+
+	void add(int node, int key) {
+		if ((size == 0) && !isInRange(key)) {
+			minKey = key;
+			firstKey = key;
+		}
+		link(node, key);
+		size++;
+	}
+
+	void update(int node, int key) {
+		unlink(node);
+		link(node, key);
+	}
+
+	/** Returns the smallest key in the queue, which must not be empty. */
+	int getFirstKey() {
+		while (firstNodes[firstKey % firstNodes.length] == NO_NODE) {
+			firstKey++;
+		}
+		return firstKey;
+	}
+
+	int removeFirst() {
+		minKey = getFirstKey();
+		int first = firstNodes[minKey % firstNodes.length];
+		unlink(first);
+		keys[first] = NO_KEY;
+		size--;
+		return first;
+	}
+
+	private void link(int node, int key) {
+		if (!isInRange(key)) {
+			throw new IllegalArgumentException("key out of range: " + key); //$NON-NLS-1$
+		}
+		if (key < firstKey) {
+			firstKey = key;
+		}
+
+		int bucket = key % firstNodes.length;
+		int next = firstNodes[bucket];
+		nextNodes[node] = next;
+		previousNodes[node] = NO_NODE;
+		if (next != NO_NODE) {
+			previousNodes[next] = node;
+		}
+		firstNodes[bucket] = node;
+		keys[node] = key;
+	}
+
+	private boolean isInRange(int key) {
+		return (key >= minKey) && ((key - minKey) < firstNodes.length);
+	}
+
+	private void unlink(int node) {
+		int next = nextNodes[node];
+		int previous = previousNodes[node];
+		if (previous != NO_NODE) {
+			nextNodes[previous] = next;
+		} else {
+			firstNodes[keys[node] % firstNodes.length] = next;
+		}
+		if (next != NO_NODE) {
+			previousNodes[next] = previous;
+		}
+	}
+}
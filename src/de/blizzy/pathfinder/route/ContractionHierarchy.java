@@ -0,0 +1,438 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Contraction hierarchy over a {@link DirectedGraph}. Building it contracts all nodes one after
+ * another, adding shortcut edges where needed to preserve shortest routes. A query is then answered
+ * by a bidirectional search that only follows edges leading to nodes contracted later, and the
+ * shortcuts on the route found are unpacked into edges of the original graph.
+ */
+public class ContractionHierarchy {
+	private static final int NO_EDGE = -1;
+	private static final int MAX_WITNESS_SETTLED_NODES = 500;
+	// shared by all nodes without edges, most of which are not roads
+	private static final int[] EMPTY_EDGES = new int[0];
+
+	private static class Builder {
+		private DirectedGraph graph;
+		private int nodeCount;
+		private int[] edgeSources = new int[64];
+		private int[] edgeTargets = new int[64];
+		private double[] edgeCosts = new double[64];
+		private int[] edgeFirstChildren = new int[64];
+		private int[] edgeSecondChildren = new int[64];
+		private int edgeCount;
+		private int[][] outEdges;
+		private int[] outEdgeCounts;
+		private int[][] inEdges;
+		private int[] inEdgeCounts;
+		private boolean[] contracted;
+		private int[] ranks;
+		private int[] contractedNeighbors;
+		private IntHeap witnessNodes;
+		private double[] witnessDistances;
+		private int[] witnessGenerations;
+		private int witnessGeneration;
+
+		Builder(DirectedGraph graph) {
+			this.graph = graph;
+			nodeCount = graph.getNodeCount();
+			outEdges = new int[nodeCount][];
+			outEdgeCounts = new int[nodeCount];
+			inEdges = new int[nodeCount][];
+			inEdgeCounts = new int[nodeCount];
+			contracted = new boolean[nodeCount];
+			ranks = new int[nodeCount];
+			contractedNeighbors = new int[nodeCount];
+			witnessNodes = new IntHeap(nodeCount);
+			witnessDistances = new double[nodeCount];
+			witnessGenerations = new int[nodeCount];
+		}
+
+		void build() {
+			Arrays.fill(outEdges, EMPTY_EDGES);
+			Arrays.fill(inEdges, EMPTY_EDGES);
+			for (int node = 0; node < nodeCount; node++) {
+				for (int edge = graph.getFirstEdge(node); edge < graph.getFirstEdge(node + 1); edge++) {
+					int target = graph.getEdgeTarget(edge);
+					if (target != node) {
+						addEdge(node, target, graph.getEdgeCost(edge), NO_EDGE, NO_EDGE);
+					}
+				}
+			}
+
+			IntHeap queue = new IntHeap(nodeCount);
+			for (int node = 0; node < nodeCount; node++) {
+				queue.add(node, getPriority(node), node);
+			}
+
+			int rank = 0;
+			while (!queue.isEmpty()) {
+				int node = queue.removeFirst();
+				double priority = getPriority(node);
+				if (!queue.isEmpty() && (priority > queue.getFirstKey())) {
+					// priority has changed since the node has been queued
+					queue.add(node, priority, node);
+					continue;
+				}
+
+				contract(node, false);
+				contracted[node] = true;
+				ranks[node] = rank++;
+
+				for (int i = 0; i < outEdgeCounts[node]; i++) {
+					updateNeighbor(edgeTargets[outEdges[node][i]], queue);
+				}
+				for (int i = 0; i < inEdgeCounts[node]; i++) {
+					updateNeighbor(edgeSources[inEdges[node][i]], queue);
+				}
+			}
+		}
+
+		private void updateNeighbor(int neighbor, IntHeap queue) {
+			if (!contracted[neighbor]) {
+				contractedNeighbors[neighbor]++;
+				queue.update(neighbor, getPriority(neighbor), neighbor);
+			}
+		}
+
+		private double getPriority(int node) {
+			int removedEdges = 0;
+			for (int i = 0; i < outEdgeCounts[node]; i++) {
+				if (!contracted[edgeTargets[outEdges[node][i]]]) {
+					removedEdges++;
+				}
+			}
+			for (int i = 0; i < inEdgeCounts[node]; i++) {
+				if (!contracted[edgeSources[inEdges[node][i]]]) {
+					removedEdges++;
+				}
+			}
+			int shortcuts = contract(node, true);
+			return shortcuts - removedEdges + contractedNeighbors[node];
+		}
+
+		private int contract(int node, boolean simulate) {
+			int shortcuts = 0;
+			int inEdgeCount = inEdgeCounts[node];
+			int outEdgeCount = outEdgeCounts[node];
+			for (int i = 0; i < inEdgeCount; i++) {
+				int inEdge = inEdges[node][i];
+				int source = edgeSources[inEdge];
+				if (contracted[source]) {
+					continue;
+				}
+
+				double maxCost = 0d;
+				for (int j = 0; j < outEdgeCount; j++) {
+					int outEdge = outEdges[node][j];
+					int target = edgeTargets[outEdge];
+					if (!contracted[target] && (target != source)) {
+						maxCost = Math.max(maxCost, edgeCosts[inEdge] + edgeCosts[outEdge]);
+					}
+				}
+				if (maxCost == 0d) {
+					continue;
+				}
+
+				findWitnesses(source, node, maxCost);
+
+				for (int j = 0; j < outEdgeCount; j++) {
+					int outEdge = outEdges[node][j];
+					int target = edgeTargets[outEdge];
+					if (contracted[target] || (target == source)) {
+						continue;
+					}
+
+					double cost = edgeCosts[inEdge] + edgeCosts[outEdge];
+					if ((witnessGenerations[target] == witnessGeneration) && (witnessDistances[target] <= cost)) {
+						continue;
+					}
+
+					shortcuts++;
+					if (!simulate) {
+						addEdge(source, target, cost, inEdge, outEdge);
+					}
+				}
+			}
+			return shortcuts;
+		}
+
+		// limited Dijkstra search from source that avoids the node being contracted
+		private void findWitnesses(int source, int avoidedNode, double maxCost) {
+			witnessGeneration++;
+			witnessNodes.clear();
+			witnessDistances[source] = 0d;
+			witnessGenerations[source] = witnessGeneration;
+			witnessNodes.add(source, 0d, 0d);
+
+			int settledNodes = 0;
+			while (!witnessNodes.isEmpty() && (settledNodes < MAX_WITNESS_SETTLED_NODES)) {
+				if (witnessNodes.getFirstKey() > maxCost) {
+					break;
+				}
+				int node = witnessNodes.removeFirst();
+				settledNodes++;
+
+				double distance = witnessDistances[node];
+				for (int i = 0; i < outEdgeCounts[node]; i++) {
+					int edge = outEdges[node][i];
+					int target = edgeTargets[edge];
+					if (contracted[target] || (target == avoidedNode)) {
+						continue;
+					}
+
+					double newDistance = distance + edgeCosts[edge];
+					if (witnessGenerations[target] != witnessGeneration) {
+						witnessGenerations[target] = witnessGeneration;
+						witnessDistances[target] = newDistance;
+						witnessNodes.add(target, newDistance, 0d);
+					} else if (newDistance < witnessDistances[target]) {
+						witnessDistances[target] = newDistance;
+						if (witnessNodes.contains(target)) {
+							witnessNodes.update(target, newDistance, 0d);
+						}
+					}
+				}
+			}
+		}
+
+		private void addEdge(int source, int target, double cost, int firstChild, int secondChild) {
+			if (edgeCount == edgeSources.length) {
+				int newLength = edgeCount * 2;
+				edgeSources = Arrays.copyOf(edgeSources, newLength);
+				edgeTargets = Arrays.copyOf(edgeTargets, newLength);
+				edgeCosts = Arrays.copyOf(edgeCosts, newLength);
+				edgeFirstChildren = Arrays.copyOf(edgeFirstChildren, newLength);
+				edgeSecondChildren = Arrays.copyOf(edgeSecondChildren, newLength);
+			}
+			int edge = edgeCount++;
+			edgeSources[edge] = source;
+			edgeTargets[edge] = target;
+			edgeCosts[edge] = cost;
+			edgeFirstChildren[edge] = firstChild;
+			edgeSecondChildren[edge] = secondChild;
+
+			if (outEdgeCounts[source] == outEdges[source].length) {
+				outEdges[source] = Arrays.copyOf(outEdges[source], Math.max(outEdgeCounts[source] * 2, 4));
+			}
+			outEdges[source][outEdgeCounts[source]++] = edge;
+			if (inEdgeCounts[target] == inEdges[target].length) {
+				inEdges[target] = Arrays.copyOf(inEdges[target], Math.max(inEdgeCounts[target] * 2, 4));
+			}
+			inEdges[target][inEdgeCounts[target]++] = edge;
+		}
+	}
+
+	private class Query {
+		private double[][] distances = new double[2][nodeCount];
+		private int[][] predecessorEdges = new int[2][nodeCount];
+		private int[][] generations = new int[2][nodeCount];
+		private int generation;
+		private IntHeap[] openNodes = { new IntHeap(nodeCount), new IntHeap(nodeCount) };
+		private int[] forwardEdges = new int[64];
+		private int[] route = new int[64];
+		private int routeLength;
+
+		int[] getShortestRoute(int origin, int target) {
+			generation++;
+			openNodes[0].clear();
+			openNodes[1].clear();
+			add(0, origin, 0d, NO_EDGE);
+			add(1, target, 0d, NO_EDGE);
+
+			double bestDistance = Double.POSITIVE_INFINITY;
+			int meetingNode = -1;
+			int direction = 0;
+			for (;;) {
+				boolean forwardDone = openNodes[0].isEmpty() || (openNodes[0].getFirstKey() >= bestDistance);
+				boolean backwardDone = openNodes[1].isEmpty() || (openNodes[1].getFirstKey() >= bestDistance);
+				if (forwardDone && backwardDone) {
+					break;
+				}
+				if (forwardDone) {
+					direction = 1;
+				} else if (backwardDone) {
+					direction = 0;
+				}
+
+				int node = openNodes[direction].removeFirst();
+				int otherDirection = 1 - direction;
+				if (generations[otherDirection][node] == generation) {
+					double distance = distances[direction][node] + distances[otherDirection][node];
+					if (distance < bestDistance) {
+						bestDistance = distance;
+						meetingNode = node;
+					}
+				}
+
+				int[] firstEdges = (direction == 0) ? firstUpwardEdges : firstDownwardEdges;
+				int[] edges = (direction == 0) ? upwardEdges : downwardEdges;
+				for (int i = firstEdges[node]; i < firstEdges[node + 1]; i++) {
+					int edge = edges[i];
+					int next = (direction == 0) ? edgeTargets[edge] : edgeSources[edge];
+					double newDistance = distances[direction][node] + edgeCosts[edge];
+					if (generations[direction][next] != generation) {
+						add(direction, next, newDistance, edge);
+					} else if (newDistance < distances[direction][next]) {
+						distances[direction][next] = newDistance;
+						predecessorEdges[direction][next] = edge;
+						if (openNodes[direction].contains(next)) {
+							openNodes[direction].update(next, newDistance, 0d);
+						}
+					}
+				}
+
+				direction = otherDirection;
+			}
+
+			return (meetingNode >= 0) ? toRoute(origin, meetingNode) : null;
+		}
+
+		private void add(int direction, int node, double distance, int predecessorEdge) {
+			generations[direction][node] = generation;
+			distances[direction][node] = distance;
+			predecessorEdges[direction][node] = predecessorEdge;
+			openNodes[direction].add(node, distance, 0d);
+		}
+
+		private int[] toRoute(int origin, int meetingNode) {
+			routeLength = 0;
+			addToRoute(origin);
+
+			int forwardEdgeCount = 0;
+			for (int node = meetingNode; predecessorEdges[0][node] != NO_EDGE; node = edgeSources[predecessorEdges[0][node]]) {
+				if (forwardEdgeCount == forwardEdges.length) {
+					forwardEdges = Arrays.copyOf(forwardEdges, forwardEdgeCount * 2);
+				}
+				forwardEdges[forwardEdgeCount++] = predecessorEdges[0][node];
+			}
+			for (int i = forwardEdgeCount - 1; i >= 0; i--) {
+				unpack(forwardEdges[i]);
+			}
+
+			for (int node = meetingNode; predecessorEdges[1][node] != NO_EDGE; node = edgeTargets[predecessorEdges[1][node]]) {
+				unpack(predecessorEdges[1][node]);
+			}
+
+			return Arrays.copyOf(route, routeLength);
+		}
+
+		private void unpack(int edge) {
+			if (edgeFirstChildren[edge] == NO_EDGE) {
+				addToRoute(edgeTargets[edge]);
+			} else {
+				unpack(edgeFirstChildren[edge]);
+				unpack(edgeSecondChildren[edge]);
+			}
+		}
+
+		private void addToRoute(int node) {
+			if (routeLength == route.length) {
+				route = Arrays.copyOf(route, routeLength * 2);
+			}
+			route[routeLength++] = node;
+		}
+	}
+
+	private int nodeCount;
+	private int[] edgeSources;
+	private int[] edgeTargets;
+	private double[] edgeCosts;
+	private int[] edgeFirstChildren;
+	private int[] edgeSecondChildren;
+	private int[] firstUpwardEdges;
+	private int[] upwardEdges;
+	private int[] firstDownwardEdges;
+	private int[] downwardEdges;
+	private ThreadLocal<Query> queries = new ThreadLocal<Query>() {
+		@Override
+		protected Query initialValue() {
+			return new Query();
+		}
+	};
+
+	public ContractionHierarchy(DirectedGraph graph) {
+		Builder builder = new Builder(graph);
+		builder.build();
+
+		nodeCount = builder.nodeCount;
+		int edgeCount = builder.edgeCount;
+		edgeSources = Arrays.copyOf(builder.edgeSources, edgeCount);
+		edgeTargets = Arrays.copyOf(builder.edgeTargets, edgeCount);
+		edgeCosts = Arrays.copyOf(builder.edgeCosts, edgeCount);
+		edgeFirstChildren = Arrays.copyOf(builder.edgeFirstChildren, edgeCount);
+		edgeSecondChildren = Arrays.copyOf(builder.edgeSecondChildren, edgeCount);
+
+		// upward edges lead from a node to a node of higher rank, downward edges lead to a node
+		// from a node of higher rank and are followed backwards
+		int[] ranks = builder.ranks;
+		firstUpwardEdges = new int[nodeCount + 1];
+		firstDownwardEdges = new int[nodeCount + 1];
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (ranks[edgeTargets[edge]] > ranks[edgeSources[edge]]) {
+				firstUpwardEdges[edgeSources[edge] + 1]++;
+			} else {
+				firstDownwardEdges[edgeTargets[edge] + 1]++;
+			}
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			firstUpwardEdges[node + 1] += firstUpwardEdges[node];
+			firstDownwardEdges[node + 1] += firstDownwardEdges[node];
+		}
+		upwardEdges = new int[firstUpwardEdges[nodeCount]];
+		downwardEdges = new int[firstDownwardEdges[nodeCount]];
+		int[] upwardPositions = Arrays.copyOf(firstUpwardEdges, nodeCount);
+		int[] downwardPositions = Arrays.copyOf(firstDownwardEdges, nodeCount);
+		for (int edge = 0; edge < edgeCount; edge++) {
+			if (ranks[edgeTargets[edge]] > ranks[edgeSources[edge]]) {
+				upwardEdges[upwardPositions[edgeSources[edge]]++] = edge;
+			} else {
+				downwardEdges[downwardPositions[edgeTargets[edge]]++] = edge;
+			}
+		}
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getShortcutCount() {
+		int shortcuts = 0;
+		for (int edge = 0; edge < edgeFirstChildren.length; edge++) {
+			if (edgeFirstChildren[edge] != NO_EDGE) {
+				shortcuts++;
+			}
+		}
+		return shortcuts;
+	}
+
+	public int[] getShortestRoute(int origin, int target) {
+		if (origin == target) {
+			return new int[] { origin };
+		}
+		return queries.get().getShortestRoute(origin, target);
+	}
+}
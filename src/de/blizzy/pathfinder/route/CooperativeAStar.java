@@ -0,0 +1,188 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Windowed cooperative A* (WHCA*). Plans the next steps of a single mover through space and time,
+ * around the nodes that other movers have reserved in a {@link ReservationTable}. The search looks
+ * ahead a fixed number of steps only, and uses the true remaining distances of a {@link FlowField}
+ * beyond that, so that it stays small while still heading for the target. Movers take turns
+ * planning and reserving their routes, and replan before their window runs out.
+ * <p>
+ * Moving straight back to the node just left is not allowed. Instances of this class reuse their
+ * search state and are not thread-safe.
+ */
+public class CooperativeAStar {
+	private static final int MAX_SEARCH_NODES = 8192;
+	private static final int NO_SEARCH_NODE = -1;
+	private static final int NO_PRECEDING_EDGE = 15;
+
+	private int window;
+	private int[] nodes = new int[MAX_SEARCH_NODES];
+	private int[] precedingNodes = new int[MAX_SEARCH_NODES];
+	private int[] steps = new int[MAX_SEARCH_NODES];
+	private int[] parents = new int[MAX_SEARCH_NODES];
+	private double[] distancesFromOrigin = new double[MAX_SEARCH_NODES];
+	private boolean[] closed = new boolean[MAX_SEARCH_NODES];
+	private int searchNodeCount;
+	private LongIntHashMap searchNodeIndexes = new LongIntHashMap(MAX_SEARCH_NODES);
+	private IntHeap openNodes = new IntHeap(MAX_SEARCH_NODES);
+
+	public CooperativeAStar(int window) {
+		if (window <= 0) {
+			throw new IllegalArgumentException("window must be positive"); //$NON-NLS-1$
+		}
+
+		this.window = window;
+	}
+
+	public int getWindow() {
+		return window;
+	}
+
+	/**
+	 * Returns a route for the next steps of <code>owner</code> from <code>origin</code> toward the
+	 * target of <code>distances</code>, avoiding nodes reserved by other owners. The route has
+	 * <code>window + 1</code> steps, or fewer if it reaches the target earlier. Returns
+	 * <code>null</code> if the target cannot be reached, or if the reservations of others do not leave
+	 * a way through the window. <code>precedingNode</code> is the node that was left to get to
+	 * <code>origin</code>, or {@link IndexedAStar#NO_NODE}.
+	 */
+	public SpaceTimeRoute getRoute(int origin, int precedingNode, DirectedGraph graph, FlowField distances,
+			ReservationTable reservations, int owner, long startTick, int stepTicks) {
+
+		if (stepTicks <= 0) {
+			throw new IllegalArgumentException("stepTicks must be positive"); //$NON-NLS-1$
+		}
+		if (distances.getDistanceToTarget(origin) == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+
+		int target = distances.getTarget();
+		searchNodeCount = 0;
+		searchNodeIndexes.clear();
+		openNodes.clear();
+		addSearchNode(origin, precedingNode, 0, 0d, NO_SEARCH_NODE, graph, distances);
+
+		while (!openNodes.isEmpty()) {
+			int searchNode = openNodes.removeFirst();
+			closed[searchNode] = true;
+			int node = nodes[searchNode];
+			if ((node == target) || (steps[searchNode] == window)) {
+				return toRoute(searchNode, startTick, stepTicks);
+			}
+
+			int step = steps[searchNode] + 1;
+			long firstTick = startTick + (long) (step - 1) * stepTicks;
+			double distanceFromOrigin = distancesFromOrigin[searchNode];
+
+			// waiting costs as much as a step
+			if (isFree(node, firstTick, stepTicks, reservations, owner) &&
+					!relax(node, precedingNodes[searchNode], step, distanceFromOrigin + 1d, searchNode, graph, distances)) {
+
+				return null;
+			}
+
+			int end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				int nextNode = graph.getEdgeTarget(edge);
+				if ((nextNode != precedingNodes[searchNode]) && !distances.isBlocked(nextNode) &&
+						(distances.getDistanceToTarget(nextNode) != Double.POSITIVE_INFINITY) &&
+						isFree(nextNode, firstTick, stepTicks, reservations, owner) &&
+						!relax(nextNode, node, step, distanceFromOrigin + graph.getEdgeCost(edge), searchNode,
+								graph, distances)) {
+
+					return null;
+				}
+			}
+		}
+		return null;
+	}
+
+	private static boolean isFree(int node, long firstTick, int stepTicks, ReservationTable reservations, int owner) {
+		for (long tick = firstTick; tick < (firstTick + stepTicks); tick++) {
+			if (reservations.isReserved(node, tick, owner)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// returns false if the search has run out of search nodes
+	private boolean relax(int node, int precedingNode, int step, double distanceFromOrigin, int parent,
+			DirectedGraph graph, FlowField distances) {
+
+		int searchNode = searchNodeIndexes.get(getKey(node, precedingNode, step, graph), NO_SEARCH_NODE);
+		if (searchNode == NO_SEARCH_NODE) {
+			return addSearchNode(node, precedingNode, step, distanceFromOrigin, parent, graph, distances);
+		}
+
+		if (!closed[searchNode] && (distanceFromOrigin < distancesFromOrigin[searchNode])) {
+			distancesFromOrigin[searchNode] = distanceFromOrigin;
+			parents[searchNode] = parent;
+			openNodes.update(searchNode, distanceFromOrigin + distances.getDistanceToTarget(node), -step);
+		}
+		return true;
+	}
+
+	private boolean addSearchNode(int node, int precedingNode, int step, double distanceFromOrigin, int parent,
+			DirectedGraph graph, FlowField distances) {
+
+		if (searchNodeCount == MAX_SEARCH_NODES) {
+			return false;
+		}
+
+		int searchNode = searchNodeCount++;
+		nodes[searchNode] = node;
+		precedingNodes[searchNode] = precedingNode;
+		steps[searchNode] = step;
+		parents[searchNode] = parent;
+		distancesFromOrigin[searchNode] = distanceFromOrigin;
+		closed[searchNode] = false;
+		searchNodeIndexes.put(getKey(node, precedingNode, step, graph), searchNode);
+		// prefer later steps on ties, to reach the end of the window sooner
+		openNodes.add(searchNode, distanceFromOrigin + distances.getDistanceToTarget(node), -step);
+		return true;
+	}
+
+	// the preceding node only matters if it could be moved to, so it is stored as an edge offset
+	private static long getKey(int node, int precedingNode, int step, DirectedGraph graph) {
+		int precedingEdge = NO_PRECEDING_EDGE;
+		int firstEdge = graph.getFirstEdge(node);
+		int end = graph.getFirstEdge(node + 1);
+		for (int edge = firstEdge; edge < end; edge++) {
+			if (graph.getEdgeTarget(edge) == precedingNode) {
+				precedingEdge = edge - firstEdge;
+				break;
+			}
+		}
+		return ((long) node << 32) | ((long) step << 4) | precedingEdge;
+	}
+
+	private SpaceTimeRoute toRoute(int searchNode, long startTick, int stepTicks) {
+		int[] route = new int[steps[searchNode] + 1];
+		for (int node = searchNode; node != NO_SEARCH_NODE; node = parents[node]) {
+			route[steps[node]] = nodes[node];
+		}
+		return new SpaceTimeRoute(route, startTick, stepTicks);
+	}
+}
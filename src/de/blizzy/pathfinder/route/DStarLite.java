@@ -0,0 +1,227 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Incremental shortest route search (D* Lite) over a {@link DirectedGraph}. The search runs
+ * backwards from the target and keeps its state between calls, so that after nodes become blocked
+ * or unblocked, or after the origin has moved along the route, only the affected part of the search
+ * tree is repaired. Edges leading into a blocked node are impassable. Distance estimates are taken
+ * from {@link IIndexedAStarFunctions#getEstimatedDistanceToTarget(int, int)}.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public class DStarLite {
+	private DirectedGraph graph;
+	private IIndexedAStarFunctions function;
+	private int origin;
+	private int target;
+	private int lastOrigin;
+	private double keyModifier;
+	private double[] distancesToTarget;
+	private double[] lookaheadDistancesToTarget;
+	private boolean[] blocked;
+	private IntHeap openNodes;
+	private int expansions;
+
+	public DStarLite(DirectedGraph graph, IIndexedAStarFunctions function, int origin, int target) {
+		int nodeCount = graph.getNodeCount();
+		if ((origin < 0) || (origin >= nodeCount) || (target < 0) || (target >= nodeCount)) {
+			throw new IllegalArgumentException("origin and target must be nodes of the graph"); //$NON-NLS-1$
+		}
+
+		this.graph = graph;
+		this.function = function;
+		this.origin = origin;
+		this.target = target;
+		lastOrigin = origin;
+		distancesToTarget = new double[nodeCount];
+		lookaheadDistancesToTarget = new double[nodeCount];
+		Arrays.fill(distancesToTarget, Double.POSITIVE_INFINITY);
+		Arrays.fill(lookaheadDistancesToTarget, Double.POSITIVE_INFINITY);
+		blocked = new boolean[nodeCount];
+		openNodes = new IntHeap(nodeCount);
+
+		lookaheadDistancesToTarget[target] = 0d;
+		openNodes.add(target, getEstimatedDistanceFromOrigin(target), 0d);
+	}
+
+	public int getOrigin() {
+		return origin;
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Moves the origin, for example after a vehicle has driven along part of the route.
+	 */
+	public void setOrigin(int origin) {
+		if (origin == this.origin) {
+			return;
+		}
+
+		this.origin = origin;
+		keyModifier += function.getEstimatedDistanceToTarget(lastOrigin, origin);
+		lastOrigin = origin;
+	}
+
+	public boolean isBlocked(int node) {
+		return blocked[node];
+	}
+
+	public void setBlocked(int node, boolean blocked) {
+		if (this.blocked[node] == blocked) {
+			return;
+		}
+
+		this.blocked[node] = blocked;
+		// only the costs of edges leading into the node have changed
+		updatePredecessors(node);
+	}
+
+	/**
+	 * Returns the shortest route from the current origin to the target, or <code>null</code> if there is
+	 * no route.
+	 */
+	public int[] getShortestRoute() {
+		computeShortestRoute();
+
+		if (distancesToTarget[origin] == Double.POSITIVE_INFINITY) {
+			return null;
+		}
+
+		int length = 1;
+		for (int node = origin; node != target; node = getNextNode(node)) {
+			length++;
+		}
+
+		int[] route = new int[length];
+		route[0] = origin;
+		for (int node = origin, i = 1; node != target; i++) {
+			node = getNextNode(node);
+			route[i] = node;
+		}
+		return route;
+	}
+
+	/**
+	 * Returns the total number of nodes expanded by this search so far.
+	 */
+	public int getExpansions() {
+		return expansions;
+	}
+
+	private void computeShortestRoute() {
+		while (!openNodes.isEmpty() &&
+				(isLess(openNodes.getFirstKey(), openNodes.getFirstSecondaryKey(), getKey(origin), getSecondaryKey(origin)) ||
+						(lookaheadDistancesToTarget[origin] != distancesToTarget[origin]))) {
+
+			int node = openNodes.getFirst();
+			double oldKey = openNodes.getFirstKey();
+			double oldSecondaryKey = openNodes.getFirstSecondaryKey();
+			double newKey = getKey(node);
+			double newSecondaryKey = getSecondaryKey(node);
+			expansions++;
+
+			if (isLess(oldKey, oldSecondaryKey, newKey, newSecondaryKey)) {
+				openNodes.update(node, newKey, newSecondaryKey);
+			} else if (distancesToTarget[node] > lookaheadDistancesToTarget[node]) {
+				distancesToTarget[node] = lookaheadDistancesToTarget[node];
+				openNodes.remove(node);
+				updatePredecessors(node);
+			} else {
+				distancesToTarget[node] = Double.POSITIVE_INFINITY;
+				updateNode(node);
+				updatePredecessors(node);
+			}
+		}
+	}
+
+	private void updatePredecessors(int node) {
+		int end = graph.getFirstReverseEdge(node + 1);
+		for (int edge = graph.getFirstReverseEdge(node); edge < end; edge++) {
+			updateNode(graph.getReverseEdgeSource(edge));
+		}
+	}
+
+	private void updateNode(int node) {
+		if (node != target) {
+			double lookaheadDistance = Double.POSITIVE_INFINITY;
+			int end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				int successor = graph.getEdgeTarget(edge);
+				if (!blocked[successor]) {
+					lookaheadDistance = Math.min(lookaheadDistance, graph.getEdgeCost(edge) + distancesToTarget[successor]);
+				}
+			}
+			lookaheadDistancesToTarget[node] = lookaheadDistance;
+		}
+
+		boolean open = openNodes.contains(node);
+		if (distancesToTarget[node] != lookaheadDistancesToTarget[node]) {
+			if (open) {
+				openNodes.update(node, getKey(node), getSecondaryKey(node));
+			} else {
+				openNodes.add(node, getKey(node), getSecondaryKey(node));
+			}
+		} else if (open) {
+			openNodes.remove(node);
+		}
+	}
+
+	private int getNextNode(int node) {
+		int nextNode = IndexedAStar.NO_NODE;
+		double minDistance = Double.POSITIVE_INFINITY;
+		int end = graph.getFirstEdge(node + 1);
+		for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+			int successor = graph.getEdgeTarget(edge);
+			if (!blocked[successor]) {
+				double distance = graph.getEdgeCost(edge) + distancesToTarget[successor];
+				if (distance < minDistance) {
+					minDistance = distance;
+					nextNode = successor;
+				}
+			}
+		}
+		return nextNode;
+	}
+
+	private double getKey(int node) {
+		return getSecondaryKey(node) + getEstimatedDistanceFromOrigin(node) + keyModifier;
+	}
+
+	private double getSecondaryKey(int node) {
+		return Math.min(distancesToTarget[node], lookaheadDistancesToTarget[node]);
+	}
+
+	private double getEstimatedDistanceFromOrigin(int node) {
+		return function.getEstimatedDistanceToTarget(origin, node);
+	}
+
+	private static boolean isLess(double key1, double secondaryKey1, double key2, double secondaryKey2) {
+		return (key1 < key2) || ((key1 == key2) && (secondaryKey1 < secondaryKey2));
+	}
+}
@@ -0,0 +1,70 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * One-to-all Dijkstra over a {@link DirectedGraph}. Distances of unreachable nodes are
+ * {@link Double#POSITIVE_INFINITY}.
+ */
+public class Dijkstra {
+	public Dijkstra() {
+	}
+
+	public double[] getDistancesFromOrigin(DirectedGraph graph, int origin) {
+		return getDistances(graph, origin, false);
+	}
+
+	public double[] getDistancesToTarget(DirectedGraph graph, int target) {
+		return getDistances(graph, target, true);
+	}
+
+	private double[] getDistances(DirectedGraph graph, int node, boolean reverse) {
+		int nodeCount = graph.getNodeCount();
+		double[] distances = new double[nodeCount];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		IntHeap openNodes = new IntHeap(nodeCount);
+
+		distances[node] = 0d;
+		openNodes.add(node, 0d, 0d);
+		while (!openNodes.isEmpty()) {
+			int currentNode = openNodes.removeFirst();
+			double distance = distances[currentNode];
+			int firstEdge = reverse ? graph.getFirstReverseEdge(currentNode) : graph.getFirstEdge(currentNode);
+			int lastEdge = reverse ? graph.getFirstReverseEdge(currentNode + 1) : graph.getFirstEdge(currentNode + 1);
+			for (int edge = firstEdge; edge < lastEdge; edge++) {
+				int nextNode = reverse ? graph.getReverseEdgeSource(edge) : graph.getEdgeTarget(edge);
+				double newDistance = distance + (reverse ? graph.getReverseEdgeCost(edge) : graph.getEdgeCost(edge));
+				if (newDistance < distances[nextNode]) {
+					distances[nextNode] = newDistance;
+					if (openNodes.contains(nextNode)) {
+						openNodes.update(nextNode, newDistance, 0d);
+					} else {
+						openNodes.add(nextNode, newDistance, 0d);
+					}
+				}
+			}
+		}
+		return distances;
+	}
+}
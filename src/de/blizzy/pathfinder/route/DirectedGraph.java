@@ -0,0 +1,81 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Immutable directed graph in compressed sparse row form. Nodes are identified by dense int IDs.
+ * The outgoing edges of a node are the edges from {@link #getFirstEdge(int)} (inclusive) to
+ * {@link #getFirstEdge(int)} of the next node (exclusive). Incoming edges are stored the same way.
+ */
+public class DirectedGraph {
+	private int nodeCount;
+	private int[] firstEdges;
+	private int[] edgeTargets;
+	private double[] edgeCosts;
+	private int[] firstReverseEdges;
+	private int[] reverseEdgeSources;
+	private double[] reverseEdgeCosts;
+
+	DirectedGraph(int nodeCount, int[] firstEdges, int[] edgeTargets, double[] edgeCosts,
+			int[] firstReverseEdges, int[] reverseEdgeSources, double[] reverseEdgeCosts) {
+
+		this.nodeCount = nodeCount;
+		this.firstEdges = firstEdges;
+		this.edgeTargets = edgeTargets;
+		this.edgeCosts = edgeCosts;
+		this.firstReverseEdges = firstReverseEdges;
+		this.reverseEdgeSources = reverseEdgeSources;
+		this.reverseEdgeCosts = reverseEdgeCosts;
+	}
+
+	public int getNodeCount() {
+		return nodeCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeTargets.length;
+	}
+
+	public int getFirstEdge(int node) {
+		return firstEdges[node];
+	}
+
+	public int getEdgeTarget(int edge) {
+		return edgeTargets[edge];
+	}
+
+	public double getEdgeCost(int edge) {
+		return edgeCosts[edge];
+	}
+
+	public int getFirstReverseEdge(int node) {
+		return firstReverseEdges[node];
+	}
+
+	public int getReverseEdgeSource(int reverseEdge) {
+		return reverseEdgeSources[reverseEdge];
+	}
+
+	public double getReverseEdgeCost(int reverseEdge) {
+		return reverseEdgeCosts[reverseEdge];
+	}
+}
@@ -0,0 +1,84 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+public class DirectedGraphBuilder {
+	private int nodeCount;
+	private int[] edgeSources = new int[64];
+	private int[] edgeTargets = new int[64];
+	private double[] edgeCosts = new double[64];
+	private int edgeCount;
+
+	public DirectedGraphBuilder(int nodeCount) {
+		this.nodeCount = nodeCount;
+	}
+
+	public void addEdge(int source, int target, double cost) {
+		if ((source < 0) || (source >= nodeCount) || (target < 0) || (target >= nodeCount)) {
+			throw new IllegalArgumentException("node out of range"); //$NON-NLS-1$
+		}
+
+		if (edgeCount == edgeSources.length) {
+			int newLength = edgeCount * 2;
+			edgeSources = Arrays.copyOf(edgeSources, newLength);
+			edgeTargets = Arrays.copyOf(edgeTargets, newLength);
+			edgeCosts = Arrays.copyOf(edgeCosts, newLength);
+		}
+		edgeSources[edgeCount] = source;
+		edgeTargets[edgeCount] = target;
+		edgeCosts[edgeCount] = cost;
+		edgeCount++;
+	}
+
+	public DirectedGraph build() {
+		int[] firstEdges = new int[nodeCount + 1];
+		int[] sortedTargets = new int[edgeCount];
+		double[] sortedCosts = new double[edgeCount];
+		sort(edgeSources, edgeTargets, firstEdges, sortedTargets, sortedCosts);
+
+		int[] firstReverseEdges = new int[nodeCount + 1];
+		int[] sortedSources = new int[edgeCount];
+		double[] sortedReverseCosts = new double[edgeCount];
+		sort(edgeTargets, edgeSources, firstReverseEdges, sortedSources, sortedReverseCosts);
+
+		return new DirectedGraph(nodeCount, firstEdges, sortedTargets, sortedCosts,
+				firstReverseEdges, sortedSources, sortedReverseCosts);
+	}
+
+	// counting sort of all edges by key node, keeping the order in which they were added
+	private void sort(int[] keyNodes, int[] otherNodes, int[] firstEdges, int[] sortedOtherNodes, double[] sortedCosts) {
+		for (int i = 0; i < edgeCount; i++) {
+			firstEdges[keyNodes[i] + 1]++;
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			firstEdges[node + 1] += firstEdges[node];
+		}
+		int[] positions = Arrays.copyOf(firstEdges, nodeCount);
+		for (int i = 0; i < edgeCount; i++) {
+			int position = positions[keyNodes[i]]++;
+			sortedOtherNodes[position] = otherNodes[i];
+			sortedCosts[position] = edgeCosts[i];
+		}
+	}
+}
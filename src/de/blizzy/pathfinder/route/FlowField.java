@@ -0,0 +1,243 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Shortest routes from all nodes of a {@link DirectedGraph} to a single target, computed by one
+ * reverse Dijkstra search over a bucket queue. Moving into a node costs that node's entry in
+ * <code>nodeCosts</code>; the graph's edge costs are not used. For each node, the next edge to take
+ * is stored as an offset into the node's edges in a byte array, so that looking up the next node is
+ * O(1). Edges leading into a blocked node are impassable. When nodes become blocked or unblocked,
+ * only the nodes whose routes are affected are recomputed.
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public class FlowField {
+	private static final byte NO_EDGE = -1;
+
+	private DirectedGraph graph;
+	private int[] nodeCosts;
+	private int target;
+	private int[] distancesToTarget;
+	private byte[] nextEdges;
+	private boolean[] blocked;
+	private BucketQueue openNodes;
+
+	public FlowField(DirectedGraph graph, int[] nodeCosts, int target, int[] blockedNodes) {
+		int nodeCount = graph.getNodeCount();
+		if ((target < 0) || (target >= nodeCount)) {
+			throw new IllegalArgumentException("target must be a node of the graph"); //$NON-NLS-1$
+		}
+		if (nodeCosts.length != nodeCount) {
+			throw new IllegalArgumentException("nodeCosts must have one entry per node"); //$NON-NLS-1$
+		}
+		for (int node = 0; node < nodeCount; node++) {
+			if ((graph.getFirstEdge(node + 1) - graph.getFirstEdge(node)) > Byte.MAX_VALUE) {
+				throw new IllegalArgumentException("too many edges at node: " + node); //$NON-NLS-1$
+			}
+		}
+
+		this.graph = graph;
+		this.nodeCosts = nodeCosts;
+		this.target = target;
+		distancesToTarget = new int[nodeCount];
+		nextEdges = new byte[nodeCount];
+		blocked = new boolean[nodeCount];
+		openNodes = new BucketQueue(nodeCount, BucketDijkstra.getMaxCost(nodeCosts));
+
+		for (int node : blockedNodes) {
+			blocked[node] = true;
+		}
+
+		Arrays.fill(distancesToTarget, BucketDijkstra.UNREACHABLE);
+		Arrays.fill(nextEdges, NO_EDGE);
+		distancesToTarget[target] = 0;
+		openNodes.add(target, 0);
+		propagate();
+	}
+
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the node to go to next from <code>node</code> to reach the target, or
+	 * {@link IndexedAStar#NO_NODE} if <code>node</code> is the target or if there is no route.
+	 */
+	public int getNextNode(int node) {
+		byte nextEdge = nextEdges[node];
+		return (nextEdge != NO_EDGE) ? graph.getEdgeTarget(graph.getFirstEdge(node) + nextEdge) : IndexedAStar.NO_NODE;
+	}
+
+	public double getDistanceToTarget(int node) {
+		int distance = distancesToTarget[node];
+		return (distance != BucketDijkstra.UNREACHABLE) ? distance : Double.POSITIVE_INFINITY;
+	}
+
+	public boolean isBlocked(int node) {
+		return blocked[node];
+	}
+
+	public void setBlocked(int node, boolean blocked) {
+		if (this.blocked[node] == blocked) {
+			return;
+		}
+
+		this.blocked[node] = blocked;
+		if (blocked) {
+			invalidateRoutesVia(node);
+		} else {
+			// edges leading into the node are passable again
+			relaxPrecedingNodes(node);
+			propagate();
+		}
+	}
+
+	private void invalidateRoutesVia(int blockedNode) {
+		// collect all nodes whose route leads through the blocked node
+		int[] affectedNodes = new int[16];
+		int affectedNodeCount = 0;
+		int end = graph.getFirstReverseEdge(blockedNode + 1);
+		for (int edge = graph.getFirstReverseEdge(blockedNode); edge < end; edge++) {
+			int node = graph.getReverseEdgeSource(edge);
+			if (getNextNode(node) == blockedNode) {
+				affectedNodes = add(affectedNodes, affectedNodeCount++, node);
+				nextEdges[node] = NO_EDGE;
+				distancesToTarget[node] = BucketDijkstra.UNREACHABLE;
+			}
+		}
+		for (int i = 0; i < affectedNodeCount; i++) {
+			int affectedNode = affectedNodes[i];
+			end = graph.getFirstReverseEdge(affectedNode + 1);
+			for (int edge = graph.getFirstReverseEdge(affectedNode); edge < end; edge++) {
+				int node = graph.getReverseEdgeSource(edge);
+				if (getNextNode(node) == affectedNode) {
+					affectedNodes = add(affectedNodes, affectedNodeCount++, node);
+					nextEdges[node] = NO_EDGE;
+					distancesToTarget[node] = BucketDijkstra.UNREACHABLE;
+				}
+			}
+		}
+
+		// find the best edge from each affected node back to the rest of the tree
+		long[] reconnections = new long[affectedNodeCount];
+		int[] reconnectionEdges = new int[affectedNodeCount];
+		int reconnectionCount = 0;
+		for (int i = 0; i < affectedNodeCount; i++) {
+			int node = affectedNodes[i];
+			int bestEdge = -1;
+			int bestDistance = BucketDijkstra.UNREACHABLE;
+			end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				int nextNode = graph.getEdgeTarget(edge);
+				int distance = distancesToTarget[nextNode];
+				if (!blocked[nextNode] && (distance != BucketDijkstra.UNREACHABLE) &&
+						((distance + nodeCosts[nextNode]) < bestDistance)) {
+
+					bestEdge = edge;
+					bestDistance = distance + nodeCosts[nextNode];
+				}
+			}
+			if (bestEdge >= 0) {
+				affectedNodes[reconnectionCount] = node;
+				reconnectionEdges[reconnectionCount] = bestEdge;
+				reconnections[reconnectionCount] = ((long) bestDistance << 32) | reconnectionCount;
+				reconnectionCount++;
+			}
+		}
+
+		// reconnect them in order of distance, each one once the search has reached its distance, so that
+		// the keys in the bucket queue never lie further apart than one node cost
+		Arrays.sort(reconnections, 0, reconnectionCount);
+		int reconnection = 0;
+		while ((reconnection < reconnectionCount) || !openNodes.isEmpty()) {
+			while ((reconnection < reconnectionCount) && (openNodes.isEmpty() ||
+					((int) (reconnections[reconnection] >>> 32) <= openNodes.getFirstKey()))) {
+
+				int index = (int) reconnections[reconnection++];
+				int edge = reconnectionEdges[index];
+				relax(affectedNodes[index], edge, distancesToTarget[graph.getEdgeTarget(edge)]);
+			}
+			if (!openNodes.isEmpty()) {
+				relaxPrecedingNodes(openNodes.removeFirst());
+			}
+		}
+	}
+
+	private static int[] add(int[] nodes, int index, int node) {
+		if (index == nodes.length) {
+			nodes = Arrays.copyOf(nodes, nodes.length * 2);
+		}
+		nodes[index] = node;
+		return nodes;
+	}
+
+	private void propagate() {
+		while (!openNodes.isEmpty()) {
+			int node = openNodes.removeFirst();
+			relaxPrecedingNodes(node);
+		}
+	}
+
+	private void relaxPrecedingNodes(int node) {
+		if (blocked[node]) {
+			return;
+		}
+
+		int distance = distancesToTarget[node];
+		int end = graph.getFirstReverseEdge(node + 1);
+		for (int edge = graph.getFirstReverseEdge(node); edge < end; edge++) {
+			int precedingNode = graph.getReverseEdgeSource(edge);
+			relax(precedingNode, getEdge(precedingNode, node), distance);
+		}
+	}
+
+	private void relax(int node, int edge, int distanceFromNextNode) {
+		if (distanceFromNextNode == BucketDijkstra.UNREACHABLE) {
+			return;
+		}
+
+		int distance = distanceFromNextNode + nodeCosts[graph.getEdgeTarget(edge)];
+		if ((node != target) && (distance < distancesToTarget[node])) {
+			distancesToTarget[node] = distance;
+			nextEdges[node] = (byte) (edge - graph.getFirstEdge(node));
+			if (openNodes.contains(node)) {
+				openNodes.update(node, distance);
+			} else {
+				openNodes.add(node, distance);
+			}
+		}
+	}
+
+	// all edges into the same node cost the same, so any of them will do
+	private int getEdge(int node, int nextNode) {
+		int end = graph.getFirstEdge(node + 1);
+		for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+			if (graph.getEdgeTarget(edge) == nextNode) {
+				return edge;
+			}
+		}
+		return -1;
+	}
+}
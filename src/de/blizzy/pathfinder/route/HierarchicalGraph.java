@@ -0,0 +1,393 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Two-level route search (HPA*) over a {@link DirectedGraph} whose nodes have been partitioned into
+ * clusters, such as road segments and intersections. Nodes with an edge leading into or out of
+ * another cluster are entrances. The abstract graph connects the entrances of each cluster with the
+ * precomputed shortest routes inside the cluster, and with the edges between clusters.
+ * <p>
+ * A query searches the origin's and the target's clusters at node level to connect them to their
+ * entrances, then searches the abstract graph, and joins the precomputed routes of the abstract
+ * edges on the way. Query cost therefore depends on the number of entrances rather than the number
+ * of nodes. Nodes in cluster -1 are not part of any cluster and are ignored.
+ */
+public class HierarchicalGraph {
+	private static final int NO_CLUSTER = -1;
+	private static final int NO_EDGE = -1;
+
+	/** Dijkstra restricted to the cluster of its start node. */
+	private static class ClusterSearch {
+		private DirectedGraph graph;
+		private int[] clusters;
+		private double[] distances;
+		private int[] predecessors;
+		private int[] generations;
+		private int generation;
+		private IntHeap openNodes;
+
+		ClusterSearch(DirectedGraph graph, int[] clusters) {
+			this.graph = graph;
+			this.clusters = clusters;
+			int nodeCount = graph.getNodeCount();
+			distances = new double[nodeCount];
+			predecessors = new int[nodeCount];
+			generations = new int[nodeCount];
+			openNodes = new IntHeap(nodeCount);
+		}
+
+		/**
+		 * Searches from <code>start</code>, or towards <code>start</code> if <code>reverse</code> is
+		 * <code>true</code>. Predecessors of nodes point towards <code>start</code>.
+		 */
+		void search(int start, boolean reverse) {
+			generation++;
+			openNodes.clear();
+			int cluster = clusters[start];
+			reach(start, 0d, IndexedAStar.NO_NODE);
+			while (!openNodes.isEmpty()) {
+				int node = openNodes.removeFirst();
+				double distance = distances[node];
+				int firstEdge = reverse ? graph.getFirstReverseEdge(node) : graph.getFirstEdge(node);
+				int lastEdge = reverse ? graph.getFirstReverseEdge(node + 1) : graph.getFirstEdge(node + 1);
+				for (int edge = firstEdge; edge < lastEdge; edge++) {
+					int nextNode = reverse ? graph.getReverseEdgeSource(edge) : graph.getEdgeTarget(edge);
+					if (clusters[nextNode] != cluster) {
+						continue;
+					}
+
+					double newDistance = distance + (reverse ? graph.getReverseEdgeCost(edge) : graph.getEdgeCost(edge));
+					if (generations[nextNode] != generation) {
+						reach(nextNode, newDistance, node);
+					} else if (newDistance < distances[nextNode]) {
+						distances[nextNode] = newDistance;
+						predecessors[nextNode] = node;
+						if (openNodes.contains(nextNode)) {
+							openNodes.update(nextNode, newDistance, 0d);
+						}
+					}
+				}
+			}
+		}
+
+		private void reach(int node, double distance, int predecessor) {
+			generations[node] = generation;
+			distances[node] = distance;
+			predecessors[node] = predecessor;
+			openNodes.add(node, distance, 0d);
+		}
+
+		boolean isReached(int node) {
+			return generations[node] == generation;
+		}
+
+		double getDistance(int node) {
+			return distances[node];
+		}
+
+		int getPredecessor(int node) {
+			return predecessors[node];
+		}
+
+		/** Returns the route from the start node to <code>node</code>, without the start node. */
+		int[] getRouteFromStart(int node) {
+			int length = 0;
+			for (int n = node; predecessors[n] != IndexedAStar.NO_NODE; n = predecessors[n]) {
+				length++;
+			}
+			int[] route = new int[length];
+			for (int n = node, i = length - 1; i >= 0; n = predecessors[n], i--) {
+				route[i] = n;
+			}
+			return route;
+		}
+	}
+
+	private class Query {
+		private ClusterSearch originSearch = new ClusterSearch(graph, clusters);
+		private ClusterSearch targetSearch = new ClusterSearch(graph, clusters);
+		private double[] distances = new double[abstractNodes.length];
+		private int[] predecessorEdges = new int[abstractNodes.length];
+		private int[] generations = new int[abstractNodes.length];
+		private int generation;
+		private IntHeap openNodes = new IntHeap(abstractNodes.length);
+		private int[] route = new int[64];
+		private int routeLength;
+
+		int[] getShortestRoute(int origin, int target) {
+			originSearch.search(origin, false);
+			targetSearch.search(target, true);
+
+			// a route inside a single cluster
+			double bestDistance = Double.POSITIVE_INFINITY;
+			int meetingNode = IndexedAStar.NO_NODE;
+			if ((clusters[origin] == clusters[target]) && originSearch.isReached(target)) {
+				bestDistance = originSearch.getDistance(target);
+			}
+
+			generation++;
+			openNodes.clear();
+			int originCluster = clusters[origin];
+			for (int i = firstClusterNodes[originCluster]; i < firstClusterNodes[originCluster + 1]; i++) {
+				int abstractNode = clusterNodes[i];
+				int node = abstractNodes[abstractNode];
+				if (originSearch.isReached(node)) {
+					add(abstractNode, originSearch.getDistance(node), NO_EDGE);
+				}
+			}
+
+			int targetCluster = clusters[target];
+			while (!openNodes.isEmpty() && (openNodes.getFirstKey() < bestDistance)) {
+				int abstractNode = openNodes.removeFirst();
+				double distance = distances[abstractNode];
+				int node = abstractNodes[abstractNode];
+				if ((clusters[node] == targetCluster) && targetSearch.isReached(node)) {
+					double totalDistance = distance + targetSearch.getDistance(node);
+					if (totalDistance < bestDistance) {
+						bestDistance = totalDistance;
+						meetingNode = abstractNode;
+					}
+				}
+
+				for (int edge = firstAbstractEdges[abstractNode]; edge < firstAbstractEdges[abstractNode + 1]; edge++) {
+					int nextNode = abstractEdgeTargets[edge];
+					double newDistance = distance + abstractEdgeCosts[edge];
+					if (generations[nextNode] != generation) {
+						add(nextNode, newDistance, edge);
+					} else if (newDistance < distances[nextNode]) {
+						distances[nextNode] = newDistance;
+						predecessorEdges[nextNode] = edge;
+						if (openNodes.contains(nextNode)) {
+							openNodes.update(nextNode, newDistance, 0d);
+						}
+					}
+				}
+			}
+
+			if (bestDistance == Double.POSITIVE_INFINITY) {
+				return null;
+			}
+
+			routeLength = 0;
+			addToRoute(origin);
+			if (meetingNode == IndexedAStar.NO_NODE) {
+				addToRoute(originSearch.getRouteFromStart(target));
+			} else {
+				addAbstractRoute(meetingNode);
+				for (int node = abstractNodes[meetingNode]; node != target; ) {
+					node = targetSearch.getPredecessor(node);
+					addToRoute(node);
+				}
+			}
+			return Arrays.copyOf(route, routeLength);
+		}
+
+		private void add(int abstractNode, double distance, int predecessorEdge) {
+			generations[abstractNode] = generation;
+			distances[abstractNode] = distance;
+			predecessorEdges[abstractNode] = predecessorEdge;
+			openNodes.add(abstractNode, distance, 0d);
+		}
+
+		private void addAbstractRoute(int abstractNode) {
+			int edge = predecessorEdges[abstractNode];
+			if (edge == NO_EDGE) {
+				addToRoute(originSearch.getRouteFromStart(abstractNodes[abstractNode]));
+			} else {
+				addAbstractRoute(abstractEdgeSources[edge]);
+				addToRoute(abstractEdgeRoutes[edge]);
+			}
+		}
+
+		private void addToRoute(int[] nodes) {
+			for (int node : nodes) {
+				addToRoute(node);
+			}
+		}
+
+		private void addToRoute(int node) {
+			if (routeLength == route.length) {
+				route = Arrays.copyOf(route, routeLength * 2);
+			}
+			route[routeLength++] = node;
+		}
+	}
+
+	private DirectedGraph graph;
+	private int[] clusters;
+	private int[] abstractNodes;
+	private int[] firstClusterNodes;
+	private int[] clusterNodes;
+	private int[] firstAbstractEdges;
+	private int[] abstractEdgeSources;
+	private int[] abstractEdgeTargets;
+	private double[] abstractEdgeCosts;
+	private int[][] abstractEdgeRoutes;
+	private ThreadLocal<Query> queries = new ThreadLocal<Query>() {
+		@Override
+		protected Query initialValue() {
+			return new Query();
+		}
+	};
+
+	public HierarchicalGraph(DirectedGraph graph, int[] clusters) {
+		int nodeCount = graph.getNodeCount();
+		if (clusters.length != nodeCount) {
+			throw new IllegalArgumentException("clusters must be given for all nodes"); //$NON-NLS-1$
+		}
+
+		this.graph = graph;
+		this.clusters = clusters.clone();
+
+		int clusterCount = 0;
+		int abstractNodeCount = 0;
+		int[] abstractIndexes = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			if (clusters[node] < NO_CLUSTER) {
+				throw new IllegalArgumentException("invalid cluster at node: " + node); //$NON-NLS-1$
+			}
+			clusterCount = Math.max(clusterCount, clusters[node] + 1);
+			abstractIndexes[node] = isEntrance(node) ? abstractNodeCount++ : -1;
+		}
+		abstractNodes = new int[abstractNodeCount];
+		firstClusterNodes = new int[clusterCount + 1];
+		for (int node = 0; node < nodeCount; node++) {
+			if (abstractIndexes[node] >= 0) {
+				abstractNodes[abstractIndexes[node]] = node;
+				firstClusterNodes[clusters[node] + 1]++;
+			}
+		}
+		for (int cluster = 0; cluster < clusterCount; cluster++) {
+			firstClusterNodes[cluster + 1] += firstClusterNodes[cluster];
+		}
+		clusterNodes = new int[abstractNodeCount];
+		int[] clusterPositions = Arrays.copyOf(firstClusterNodes, clusterCount);
+		for (int abstractNode = 0; abstractNode < abstractNodeCount; abstractNode++) {
+			clusterNodes[clusterPositions[clusters[abstractNodes[abstractNode]]]++] = abstractNode;
+		}
+
+		// abstract edges, added in order of their source nodes
+		firstAbstractEdges = new int[abstractNodeCount + 1];
+		abstractEdgeSources = new int[64];
+		abstractEdgeTargets = new int[64];
+		abstractEdgeCosts = new double[64];
+		abstractEdgeRoutes = new int[64][];
+		int abstractEdgeCount = 0;
+		ClusterSearch search = new ClusterSearch(graph, this.clusters);
+		for (int abstractNode = 0; abstractNode < abstractNodeCount; abstractNode++) {
+			firstAbstractEdges[abstractNode] = abstractEdgeCount;
+			int node = abstractNodes[abstractNode];
+			int cluster = clusters[node];
+
+			search.search(node, false);
+			for (int i = firstClusterNodes[cluster]; i < firstClusterNodes[cluster + 1]; i++) {
+				int otherNode = abstractNodes[clusterNodes[i]];
+				if ((otherNode != node) && search.isReached(otherNode)) {
+					abstractEdgeCount = addAbstractEdge(abstractEdgeCount, abstractNode, clusterNodes[i],
+							search.getDistance(otherNode), search.getRouteFromStart(otherNode));
+				}
+			}
+
+			int end = graph.getFirstEdge(node + 1);
+			for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+				int nextNode = graph.getEdgeTarget(edge);
+				if ((clusters[nextNode] != NO_CLUSTER) && (clusters[nextNode] != cluster)) {
+					abstractEdgeCount = addAbstractEdge(abstractEdgeCount, abstractNode, abstractIndexes[nextNode],
+							graph.getEdgeCost(edge), new int[] { nextNode });
+				}
+			}
+		}
+		firstAbstractEdges[abstractNodeCount] = abstractEdgeCount;
+		abstractEdgeSources = Arrays.copyOf(abstractEdgeSources, abstractEdgeCount);
+		abstractEdgeTargets = Arrays.copyOf(abstractEdgeTargets, abstractEdgeCount);
+		abstractEdgeCosts = Arrays.copyOf(abstractEdgeCosts, abstractEdgeCount);
+		abstractEdgeRoutes = Arrays.copyOf(abstractEdgeRoutes, abstractEdgeCount);
+	}
+
+	private boolean isEntrance(int node) {
+		int cluster = clusters[node];
+		if (cluster == NO_CLUSTER) {
+			return false;
+		}
+
+		int end = graph.getFirstEdge(node + 1);
+		for (int edge = graph.getFirstEdge(node); edge < end; edge++) {
+			int otherCluster = clusters[graph.getEdgeTarget(edge)];
+			if ((otherCluster != NO_CLUSTER) && (otherCluster != cluster)) {
+				return true;
+			}
+		}
+		end = graph.getFirstReverseEdge(node + 1);
+		for (int edge = graph.getFirstReverseEdge(node); edge < end; edge++) {
+			int otherCluster = clusters[graph.getReverseEdgeSource(edge)];
+			if ((otherCluster != NO_CLUSTER) && (otherCluster != cluster)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int addAbstractEdge(int edge, int source, int target, double cost, int[] route) {
+		if (edge == abstractEdgeTargets.length) {
+			int length = edge * 2;
+			abstractEdgeSources = Arrays.copyOf(abstractEdgeSources, length);
+			abstractEdgeTargets = Arrays.copyOf(abstractEdgeTargets, length);
+			abstractEdgeCosts = Arrays.copyOf(abstractEdgeCosts, length);
+			abstractEdgeRoutes = Arrays.copyOf(abstractEdgeRoutes, length);
+		}
+		abstractEdgeSources[edge] = source;
+		abstractEdgeTargets[edge] = target;
+		abstractEdgeCosts[edge] = cost;
+		abstractEdgeRoutes[edge] = route;
+		return edge + 1;
+	}
+
+	public int getNodeCount() {
+		return graph.getNodeCount();
+	}
+
+	public int getAbstractNodeCount() {
+		return abstractNodes.length;
+	}
+
+	public int getAbstractEdgeCount() {
+		return abstractEdgeTargets.length;
+	}
+
+	/**
+	 * Returns the shortest route from <code>origin</code> to <code>target</code>, or <code>null</code>
+	 * if there is no route. Both nodes must be part of a cluster.
+	 */
+	public int[] getShortestRoute(int origin, int target) {
+		if ((clusters[origin] == NO_CLUSTER) || (clusters[target] == NO_CLUSTER)) {
+			throw new IllegalArgumentException("origin and target must be part of a cluster"); //$NON-NLS-1$
+		}
+
+		if (origin == target) {
+			return new int[] { origin };
+		}
+		return queries.get().getShortestRoute(origin, target);
+	}
+}
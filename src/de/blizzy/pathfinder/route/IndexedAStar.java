@@ -0,0 +1,246 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * A* over nodes identified by dense int IDs. All search state is held in a {@link SearchContext},
+ * so instances of this class are stateless and may be shared between threads.
+ */
+public class IndexedAStar {
+	static final int NO_NODE = -1;
+
+	private double weight;
+
+	public IndexedAStar() {
+		this(1d);
+	}
+
+	/**
+	 * Creates a weighted A* search. Estimated distances to target are multiplied by
+	 * <code>weight</code>, which makes the search faster, but the routes found may be up to
+	 * <code>weight</code> times longer than the shortest routes.
+	 */
+	public IndexedAStar(double weight) {
+		if (!(weight >= 1d)) {
+			throw new IllegalArgumentException("weight must be >= 1"); //$NON-NLS-1$
+		}
+
+		this.weight = weight;
+	}
+
+	public double getWeight() {
+		return weight;
+	}
+
+	public int[] getShortestRoute(int origin, int target, IIndexedAStarFunctions function, SearchContext context) {
+		return getShortestRoute(origin, target, function, context, null);
+	}
+
+	/**
+	 * Returns the shortest route from <code>origin</code> to <code>target</code>, or <code>null</code>
+	 * if there is no route or if the search has exhausted <code>budget</code>. The budget may be
+	 * <code>null</code>.
+	 */
+	public int[] getShortestRoute(int origin, int target, IIndexedAStarFunctions function, SearchContext context,
+			SearchBudget budget) {
+
+		return getShortestRoute(origin, target, function, context, budget, null, null);
+	}
+
+	/**
+	 * Returns the shortest route from <code>origin</code> to <code>target</code>, or <code>null</code>
+	 * if there is no route or if the search has exhausted <code>budget</code>. The search fills in
+	 * <code>statistics</code> and reports each expanded node to <code>listener</code>. The budget,
+	 * statistics and listener may be <code>null</code>.
+	 */
+	public int[] getShortestRoute(int origin, int target, IIndexedAStarFunctions function, SearchContext context,
+			SearchBudget budget, SearchStatistics statistics, IIndexedSearchListener listener) {
+
+		if (statistics != null) {
+			statistics.start();
+		}
+		int[] route = search(origin, target, function, context, budget, statistics, listener);
+		if (statistics != null) {
+			statistics.finish((route != null) ? route.length : 0);
+		}
+		return route;
+	}
+
+	private int[] search(int origin, int target, IIndexedAStarFunctions function, SearchContext context,
+			SearchBudget budget, SearchStatistics statistics, IIndexedSearchListener listener) {
+
+		if (budget != null) {
+			budget.start();
+		}
+
+		IIndexedTargetFunctions targetFunction = (function instanceof IIndexedTargetFunctions) ?
+				(IIndexedTargetFunctions) function : null;
+
+		context.reset(function);
+		IntHeap openNodes = context.getOpenNodes();
+
+		context.setClosed(origin);
+		context.setDistanceFromOrigin(origin, 0d);
+		context.setPredecessor(origin, NO_NODE);
+		openNodes.add(origin, 0d, context.nextSequence());
+
+		do {
+			int currentNode = openNodes.removeFirst();
+
+			if (((targetFunction != null) ? targetFunction.getTargetNode(currentNode) : currentNode) == target) {
+				return toRoute(currentNode, context);
+			}
+
+			if ((budget != null) && !budget.expand()) {
+				return null;
+			}
+
+			context.setClosed(currentNode);
+
+			if (statistics != null) {
+				statistics.nodeExpanded();
+			}
+			if (listener != null) {
+				listener.nodeExpanded(currentNode, context.getDistanceFromOrigin(currentNode));
+			}
+
+			expandNode(currentNode, target, function, context, statistics);
+		} while (!openNodes.isEmpty());
+
+		return null;
+	}
+
+	/**
+	 * Returns the shortest routes from <code>origin</code> to each of <code>targets</code>, using a
+	 * single search that stops once all targets have been reached. The returned array contains the
+	 * routes in the order of <code>targets</code>, with <code>null</code> for unreachable targets.
+	 */
+	public int[][] getShortestRoutes(int origin, int[] targets, IIndexedAStarFunctions function, SearchContext context) {
+		int[][] routes = new int[targets.length][];
+		if (targets.length == 0) {
+			return routes;
+		}
+
+		int[] sortedTargets = targets.clone();
+		Arrays.sort(sortedTargets);
+		int remainingTargets = 0;
+		for (int i = 0; i < sortedTargets.length; i++) {
+			if ((i == 0) || (sortedTargets[i] != sortedTargets[i - 1])) {
+				sortedTargets[remainingTargets++] = sortedTargets[i];
+			}
+		}
+		sortedTargets = Arrays.copyOf(sortedTargets, remainingTargets);
+		boolean[] reachedTargets = new boolean[remainingTargets];
+		IIndexedTargetFunctions targetFunction = (function instanceof IIndexedTargetFunctions) ?
+				(IIndexedTargetFunctions) function : null;
+
+		context.reset(function);
+		IntHeap openNodes = context.getOpenNodes();
+
+		context.setClosed(origin);
+		context.setDistanceFromOrigin(origin, 0d);
+		context.setPredecessor(origin, NO_NODE);
+		openNodes.add(origin, 0d, context.nextSequence());
+
+		do {
+			int currentNode = openNodes.removeFirst();
+
+			int targetNode = (targetFunction != null) ? targetFunction.getTargetNode(currentNode) : currentNode;
+			int targetIndex = Arrays.binarySearch(sortedTargets, targetNode);
+			if ((targetIndex >= 0) && !reachedTargets[targetIndex]) {
+				reachedTargets[targetIndex] = true;
+				int[] route = toRoute(currentNode, context);
+				for (int i = 0; i < targets.length; i++) {
+					if (targets[i] == targetNode) {
+						routes[i] = route;
+					}
+				}
+				remainingTargets--;
+				if (remainingTargets == 0) {
+					break;
+				}
+			}
+
+			context.setClosed(currentNode);
+
+			// there is no single target to estimate the distance to, so this is plain Dijkstra
+			expandNode(currentNode, NO_NODE, function, context, null);
+		} while (!openNodes.isEmpty());
+
+		return routes;
+	}
+
+	private void expandNode(int currentNode, int target, IIndexedAStarFunctions function, SearchContext context,
+			SearchStatistics statistics) {
+
+		IntHeap openNodes = context.getOpenNodes();
+		int[] adjacentNodes = context.getAdjacentNodes();
+		int adjacentNodeCount = function.getAdjacentNodes(currentNode, context.getPredecessor(currentNode), adjacentNodes);
+		for (int i = 0; i < adjacentNodeCount; i++) {
+			int successor = adjacentNodes[i];
+			if (context.isClosed(successor)) {
+				continue;
+			}
+
+			double distanceFromCurrentToSuccessor = function.getDistance(currentNode, successor);
+			double newDistanceFromOriginToSuccessor = context.getDistanceFromOrigin(currentNode) + distanceFromCurrentToSuccessor;
+
+			boolean open = openNodes.contains(successor);
+			if (open && (newDistanceFromOriginToSuccessor >= context.getDistanceFromOrigin(successor))) {
+				continue;
+			}
+
+			context.setPredecessor(successor, currentNode);
+			context.setDistanceFromOrigin(successor, newDistanceFromOriginToSuccessor);
+
+			double estimatedDistanceFromSuccessorToTarget = (target != NO_NODE) ?
+					function.getEstimatedDistanceToTarget(successor, target) : 0d;
+			double newDistanceFromOriginToTarget = newDistanceFromOriginToSuccessor + weight * estimatedDistanceFromSuccessorToTarget;
+			if (open) {
+				openNodes.update(successor, newDistanceFromOriginToTarget, openNodes.getSecondaryKey(successor));
+				if (statistics != null) {
+					statistics.nodeImproved();
+				}
+			} else {
+				openNodes.add(successor, newDistanceFromOriginToTarget, context.nextSequence());
+				if (statistics != null) {
+					statistics.nodeGenerated(openNodes.size());
+				}
+			}
+		}
+	}
+
+	private int[] toRoute(int target, SearchContext context) {
+		int length = 0;
+		for (int node = target; node != NO_NODE; node = context.getPredecessor(node)) {
+			length++;
+		}
+
+		int[] route = new int[length];
+		for (int node = target, i = length - 1; node != NO_NODE; node = context.getPredecessor(node), i--) {
+			route[i] = node;
+		}
+		return route;
+	}
+}
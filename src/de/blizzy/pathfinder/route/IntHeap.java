@@ -0,0 +1,204 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of int nodes. Entries are ordered by key, then by secondary key. Keys are
+ * stored in the heap entries, and each node's position in the heap is tracked, so that membership
+ * tests are O(1) and changing a key is O(log n). Clearing the heap is O(1) as well.
+ */
+class IntHeap {
+	private int[] nodes;
+	private double[] keys;
+	private double[] secondaryKeys;
+	private int[] positions;
+	private int[] positionGenerations;
+	private int generation = 1;
+	private int size;
+	private int allocations;
+
+	IntHeap(int nodeCount) {
+		nodes = new int[16];
+		keys = new double[16];
+		secondaryKeys = new double[16];
+		positions = new int[nodeCount];
+		positionGenerations = new int[nodeCount];
+	}
+
+	int getNodeCount() {
+		return positions.length;
+	}
+
+	/** Makes room for nodes up to <code>nodeCount - 1</code>, keeping all entries. */
+	void ensureNodeCount(int nodeCount) {
+		if (positions.length < nodeCount) {
+			int newLength = Math.max(nodeCount, positions.length * 2);
+			positions = Arrays.copyOf(positions, newLength);
+			positionGenerations = Arrays.copyOf(positionGenerations, newLength);
+			allocations++;
+		}
+	}
+
+	/** Returns the number of times this heap had to grow its arrays. */
+	int getAllocations() {
+		return allocations;
+	}
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	boolean contains(int node) {
+		return (positionGenerations[node] == generation) && (positions[node] >= 0);
+	}
+
+	double getKey(int node) {
+		return keys[positions[node]];
+	}
+
+	double getSecondaryKey(int node) {
+		return secondaryKeys[positions[node]];
+	}
+
+	double getFirstKey() {
+		return keys[0];
+	}
+
+	double getFirstSecondaryKey() {
+		return secondaryKeys[0];
+	}
+
+	int getFirst() {
+		return nodes[0];
+	}
+
+	/** Returns the node at <code>position</code>, in heap order, for iterating over all nodes. */
+	int getNodeAt(int position) {
+		return nodes[position];
+	}
+
+	void add(int node, double key, double secondaryKey) {
+		if (size == nodes.length) {
+			int newLength = size * 2;
+			nodes = Arrays.copyOf(nodes, newLength);
+			keys = Arrays.copyOf(keys, newLength);
+			secondaryKeys = Arrays.copyOf(secondaryKeys, newLength);
+			allocations++;
+		}
+		size++;
+		siftUp(size - 1, node, key, secondaryKey);
+	}
+
+	void update(int node, double key, double secondaryKey) {
+		int position = positions[node];
+		if (isLess(key, secondaryKey, keys[position], secondaryKeys[position])) {
+			siftUp(position, node, key, secondaryKey);
+		} else {
+			siftDown(position, node, key, secondaryKey);
+		}
+	}
+
+	int removeFirst() {
+		int first = nodes[0];
+		removeAt(0);
+		return first;
+	}
+
+	void remove(int node) {
+		removeAt(positions[node]);
+	}
+
+	void clear() {
+		size = 0;
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(positionGenerations, 0);
+			generation = 1;
+		}
+	}
+
+	private void removeAt(int position) {
+		int node = nodes[position];
+		positions[node] = -1;
+		size--;
+		if (position < size) {
+			int lastNode = nodes[size];
+			double lastKey = keys[size];
+			double lastSecondaryKey = secondaryKeys[size];
+			if (isLess(lastKey, lastSecondaryKey, keys[position], secondaryKeys[position])) {
+				siftUp(position, lastNode, lastKey, lastSecondaryKey);
+			} else {
+				siftDown(position, lastNode, lastKey, lastSecondaryKey);
+			}
+		}
+	}
+
+	private void siftUp(int position, int node, double key, double secondaryKey) {
+		while (position > 0) {
+			int parent = (position - 1) >>> 1;
+			if (!isLess(key, secondaryKey, keys[parent], secondaryKeys[parent])) {
+				break;
+			}
+			set(position, nodes[parent], keys[parent], secondaryKeys[parent]);
+			position = parent;
+		}
+		set(position, node, key, secondaryKey);
+	}
+
+	private void siftDown(int position, int node, double key, double secondaryKey) {
+		int half = size >>> 1;
+		while (position < half) {
+			int child = (position << 1) + 1;
+			int right = child + 1;
+			if ((right < size) && isLess(keys[right], secondaryKeys[right], keys[child], secondaryKeys[child])) {
+				child = right;
+			}
+			if (!isLess(keys[child], secondaryKeys[child], key, secondaryKey)) {
+				break;
+			}
+			set(position, nodes[child], keys[child], secondaryKeys[child]);
+			position = child;
+		}
+		set(position, node, key, secondaryKey);
+	}
+
+	private void set(int position, int node, double key, double secondaryKey) {
+		nodes[position] = node;
+		keys[position] = key;
+		secondaryKeys[position] = secondaryKey;
+		positions[node] = position;
+		positionGenerations[node] = generation;
+	}
+
+	private static boolean isLess(double key1, double secondaryKey1, double key2, double secondaryKey2) {
+		if (key1 != key2) {
+			return key1 < key2;
+		}
+		return secondaryKey1 < secondaryKey2;
+	}
+}
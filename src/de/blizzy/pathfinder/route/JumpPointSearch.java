@@ -0,0 +1,116 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Jump point search over nodes identified by dense int IDs. Instead of adding each successor of a
+ * node to the open set, the search asks the graph to jump from the node across that successor for
+ * as long as there is nothing to decide, and only adds the node where it stopped. Routes are unpacked
+ * back into single steps before they are returned.
+ */
+public class JumpPointSearch {
+	public JumpPointSearch() {
+	}
+
+	public int[] getShortestRoute(int origin, int target, IJumpPointFunctions function, SearchContext context) {
+		context.reset(function);
+		IntHeap openNodes = context.getOpenNodes();
+
+		context.setClosed(origin);
+		context.setDistanceFromOrigin(origin, 0d);
+		context.setPredecessor(origin, IndexedAStar.NO_NODE);
+		openNodes.add(origin, 0d, context.nextSequence());
+
+		do {
+			int currentNode = openNodes.removeFirst();
+
+			if (currentNode == target) {
+				return toRoute(target, function, context);
+			}
+
+			context.setClosed(currentNode);
+
+			expandNode(currentNode, target, function, context);
+		} while (!openNodes.isEmpty());
+
+		return null;
+	}
+
+	private void expandNode(int currentNode, int target, IJumpPointFunctions function, SearchContext context) {
+		IntHeap openNodes = context.getOpenNodes();
+		int[] adjacentNodes = context.getAdjacentNodes();
+		int adjacentNodeCount = function.getAdjacentNodes(currentNode, context.getPredecessor(currentNode), adjacentNodes);
+		for (int i = 0; i < adjacentNodeCount; i++) {
+			int jumpPoint = function.jump(currentNode, adjacentNodes[i], target);
+			if ((jumpPoint == IndexedAStar.NO_NODE) || context.isClosed(jumpPoint)) {
+				continue;
+			}
+
+			double distanceFromCurrentToJumpPoint = function.getDistance(currentNode, jumpPoint);
+			double newDistanceFromOriginToJumpPoint = context.getDistanceFromOrigin(currentNode) + distanceFromCurrentToJumpPoint;
+
+			boolean open = openNodes.contains(jumpPoint);
+			if (open && (newDistanceFromOriginToJumpPoint >= context.getDistanceFromOrigin(jumpPoint))) {
+				continue;
+			}
+
+			context.setPredecessor(jumpPoint, currentNode);
+			context.setDistanceFromOrigin(jumpPoint, newDistanceFromOriginToJumpPoint);
+
+			double estimatedDistanceFromJumpPointToTarget = function.getEstimatedDistanceToTarget(jumpPoint, target);
+			double newDistanceFromOriginToTarget = newDistanceFromOriginToJumpPoint + estimatedDistanceFromJumpPointToTarget;
+			if (open) {
+				openNodes.update(jumpPoint, newDistanceFromOriginToTarget, openNodes.getSecondaryKey(jumpPoint));
+			} else {
+				openNodes.add(jumpPoint, newDistanceFromOriginToTarget, context.nextSequence());
+			}
+		}
+	}
+
+	private int[] toRoute(int target, IJumpPointFunctions function, SearchContext context) {
+		int length = 1;
+		for (int node = target; context.getPredecessor(node) != IndexedAStar.NO_NODE; node = context.getPredecessor(node)) {
+			length += getStepCount(context.getPredecessor(node), node, function);
+		}
+
+		int[] route = new int[length];
+		int end = length - 1;
+		route[end] = target;
+		for (int node = target; context.getPredecessor(node) != IndexedAStar.NO_NODE; node = context.getPredecessor(node)) {
+			int predecessor = context.getPredecessor(node);
+			int start = end - getStepCount(predecessor, node, function);
+			for (int n = predecessor, i = start; i < end; n = function.getNextNode(n, node), i++) {
+				route[i] = n;
+			}
+			end = start;
+		}
+		return route;
+	}
+
+	private int getStepCount(int node, int jumpPoint, IJumpPointFunctions function) {
+		int steps = 0;
+		for (int n = node; n != jumpPoint; n = function.getNextNode(n, jumpPoint)) {
+			steps++;
+		}
+		return steps;
+	}
+}
@@ -0,0 +1,78 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Set;
+
+/**
+ * Decorates {@link IAStarFunctions} so that the estimated distance to target is the larger of the
+ * decorated estimate and the landmark lower bound.
+ */
+public class LandmarkAStarFunctions implements IVisitingAStarFunctions {
+	private IAStarFunctions function;
+	private Landmarks landmarks;
+	private INodeIndex nodeIndex;
+	private int target;
+	private int estimates;
+
+	public LandmarkAStarFunctions(IAStarFunctions function, Landmarks landmarks, INodeIndex nodeIndex, INode target) {
+		this.function = function;
+		this.landmarks = landmarks;
+		this.nodeIndex = nodeIndex;
+		this.target = nodeIndex.getIndex(target);
+	}
+
+	@Override
+	public double getEstimatedDistanceToTarget(INode node) {
+		estimates++;
+		return Math.max(function.getEstimatedDistanceToTarget(node), landmarks.getLowerBound(nodeIndex.getIndex(node), target));
+	}
+
+	@Override
+	public double getDistance(INode node1, INode node2) {
+		return function.getDistance(node1, node2);
+	}
+
+	@Override
+	public Set<INode> getAdjacentNodes(INode node, INode precedingNode) {
+		return function.getAdjacentNodes(node, precedingNode);
+	}
+
+	@Override
+	public void visitAdjacentNodes(INode node, INode precedingNode, IAdjacentNodeVisitor visitor) {
+		if (function instanceof IVisitingAStarFunctions) {
+			((IVisitingAStarFunctions) function).visitAdjacentNodes(node, precedingNode, visitor);
+		} else {
+			for (INode successor : function.getAdjacentNodes(node, precedingNode)) {
+				visitor.visit(successor, function.getDistance(node, successor));
+			}
+		}
+	}
+
+	/**
+	 * Returns how many times the estimated distance to target has been queried. A* does this once for
+	 * each node it adds to or updates in its open set.
+	 */
+	public int getEstimates() {
+		return estimates;
+	}
+}
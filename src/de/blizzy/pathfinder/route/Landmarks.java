@@ -0,0 +1,131 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Landmark distance tables for ALT (A*, landmarks, triangle inequality) lower bounds. Landmarks are
+ * chosen by farthest-point selection, which places them at the periphery of the graph. For each
+ * landmark, the distances from the landmark to all nodes and from all nodes to the landmark are
+ * stored. Moving into a node costs that node's entry in <code>nodeCosts</code>.
+ */
+public class Landmarks {
+	private int[] landmarks;
+	private float[][] distancesFromLandmarks;
+	private float[][] distancesToLandmarks;
+
+	public Landmarks(DirectedGraph graph, int[] nodeCosts, int landmarkCount) {
+		int nodeCount = graph.getNodeCount();
+		landmarks = new int[landmarkCount];
+		distancesFromLandmarks = new float[landmarkCount][];
+		distancesToLandmarks = new float[landmarkCount][];
+
+		// start with any node that has edges, its farthest node will be the first landmark
+		int start = 0;
+		while ((start < (nodeCount - 1)) && (graph.getFirstEdge(start) == graph.getFirstEdge(start + 1))) {
+			start++;
+		}
+		BucketDijkstra dijkstra = new BucketDijkstra();
+		int[] minDistances = dijkstra.getDistancesFromOrigin(graph, nodeCosts, start);
+
+		for (int i = 0; i < landmarkCount; i++) {
+			int landmark = getFarthestNode(minDistances);
+			if (landmark < 0) {
+				landmarkCount = i;
+				break;
+			}
+
+			landmarks[i] = landmark;
+			int[] distancesFromLandmark = dijkstra.getDistancesFromOrigin(graph, nodeCosts, landmark);
+			distancesFromLandmarks[i] = toFloats(distancesFromLandmark);
+			distancesToLandmarks[i] = toFloats(dijkstra.getDistancesToTarget(graph, nodeCosts, landmark));
+
+			for (int node = 0; node < nodeCount; node++) {
+				minDistances[node] = (i == 0) ? distancesFromLandmark[node] : Math.min(minDistances[node], distancesFromLandmark[node]);
+			}
+		}
+
+		if (landmarkCount < landmarks.length) {
+			int[] newLandmarks = new int[landmarkCount];
+			float[][] newDistancesFromLandmarks = new float[landmarkCount][];
+			float[][] newDistancesToLandmarks = new float[landmarkCount][];
+			System.arraycopy(landmarks, 0, newLandmarks, 0, landmarkCount);
+			System.arraycopy(distancesFromLandmarks, 0, newDistancesFromLandmarks, 0, landmarkCount);
+			System.arraycopy(distancesToLandmarks, 0, newDistancesToLandmarks, 0, landmarkCount);
+			landmarks = newLandmarks;
+			distancesFromLandmarks = newDistancesFromLandmarks;
+			distancesToLandmarks = newDistancesToLandmarks;
+		}
+	}
+
+	private static int getFarthestNode(int[] distances) {
+		int farthestNode = -1;
+		int farthestDistance = 0;
+		for (int node = 0; node < distances.length; node++) {
+			int distance = distances[node];
+			if ((distance != BucketDijkstra.UNREACHABLE) && (distance > farthestDistance)) {
+				farthestNode = node;
+				farthestDistance = distance;
+			}
+		}
+		return farthestNode;
+	}
+
+	private static float[] toFloats(int[] values) {
+		float[] floats = new float[values.length];
+		for (int i = 0; i < values.length; i++) {
+			floats[i] = (values[i] != BucketDijkstra.UNREACHABLE) ? values[i] : Float.POSITIVE_INFINITY;
+		}
+		return floats;
+	}
+
+	public int getLandmarkCount() {
+		return landmarks.length;
+	}
+
+	public int getLandmark(int index) {
+		return landmarks[index];
+	}
+
+	public long getMemoryPerLandmark() {
+		return (distancesFromLandmarks.length > 0) ? (distancesFromLandmarks[0].length * 4L * 2L) : 0L;
+	}
+
+	public double getLowerBound(int node, int target) {
+		double lowerBound = 0d;
+		for (int i = 0; i < landmarks.length; i++) {
+			// d(l, t) - d(l, n) <= d(n, t)
+			float fromLandmarkToTarget = distancesFromLandmarks[i][target];
+			float fromLandmarkToNode = distancesFromLandmarks[i][node];
+			if ((fromLandmarkToTarget != Float.POSITIVE_INFINITY) && (fromLandmarkToNode != Float.POSITIVE_INFINITY)) {
+				lowerBound = Math.max(lowerBound, fromLandmarkToTarget - fromLandmarkToNode);
+			}
+
+			// d(n, l) - d(t, l) <= d(n, t)
+			float fromNodeToLandmark = distancesToLandmarks[i][node];
+			float fromTargetToLandmark = distancesToLandmarks[i][target];
+			if ((fromNodeToLandmark != Float.POSITIVE_INFINITY) && (fromTargetToLandmark != Float.POSITIVE_INFINITY)) {
+				lowerBound = Math.max(lowerBound, fromNodeToLandmark - fromTargetToLandmark);
+			}
+		}
+		return lowerBound;
+	}
+}
@@ -0,0 +1,147 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to int values, with linear probing. Removing entries
+ * shifts the following entries back, so there are no tombstones. Clearing the map is O(1).
+ */
+class LongIntHashMap {
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private int[] slotGenerations;
+	private int generation = 1;
+	private int size;
+	private int mask;
+
+	LongIntHashMap(int expectedSize) {
+		int capacity = MIN_CAPACITY;
+		while (capacity < (expectedSize * 2)) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+	}
+
+	private void allocate(int capacity) {
+		keys = new long[capacity];
+		values = new int[capacity];
+		slotGenerations = new int[capacity];
+		mask = capacity - 1;
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the value of <code>key</code>, or <code>defaultValue</code> if there is none.
+	 */
+	int get(long key, int defaultValue) {
+		for (int slot = getSlot(key); isUsed(slot); slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				return values[slot];
+			}
+		}
+		return defaultValue;
+	}
+
+	void put(long key, int value) {
+		int slot = getSlot(key);
+		for (; isUsed(slot); slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				values[slot] = value;
+				return;
+			}
+		}
+
+		keys[slot] = key;
+		values[slot] = value;
+		slotGenerations[slot] = generation;
+		size++;
+		if ((size * 2) > keys.length) {
+			resize();
+		}
+	}
+
+	boolean remove(long key) {
+		int slot = getSlot(key);
+		for (; isUsed(slot); slot = (slot + 1) & mask) {
+			if (keys[slot] == key) {
+				break;
+			}
+		}
+		if (!isUsed(slot)) {
+			return false;
+		}
+
+		// shift back following entries that would not be found anymore otherwise
+		int emptySlot = slot;
+		for (int nextSlot = (slot + 1) & mask; isUsed(nextSlot); nextSlot = (nextSlot + 1) & mask) {
+			int homeSlot = getSlot(keys[nextSlot]);
+			if (((nextSlot - homeSlot) & mask) >= ((nextSlot - emptySlot) & mask)) {
+				keys[emptySlot] = keys[nextSlot];
+				values[emptySlot] = values[nextSlot];
+				emptySlot = nextSlot;
+			}
+		}
+		slotGenerations[emptySlot] = 0;
+		size--;
+		return true;
+	}
+
+	void clear() {
+		size = 0;
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(slotGenerations, 0);
+			generation = 1;
+		}
+	}
+
+	private void resize() {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		int[] oldSlotGenerations = slotGenerations;
+		int oldGeneration = generation;
+		allocate(oldKeys.length * 2);
+		generation = 1;
+		size = 0;
+		for (int slot = 0; slot < oldKeys.length; slot++) {
+			if (oldSlotGenerations[slot] == oldGeneration) {
+				put(oldKeys[slot], oldValues[slot]);
+			}
+		}
+	}
+
+	private boolean isUsed(int slot) {
+		return slotGenerations[slot] == generation;
+	}
+
+	private int getSlot(long key) {
+		long hash = key * 0x9E3779B97F4A7C15L;
+		return (int) (hash >>> 32) & mask;
+	}
+}
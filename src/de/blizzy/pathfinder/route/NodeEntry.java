@@ -0,0 +1,92 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+class NodeEntry {
+	private INode node;
+	private NodeEntry predecessor;
+	private double distanceFromOrigin;
+	private double distanceFromOriginToTarget;
+	private long sequence;
+	private int heapIndex = -1;
+	private boolean closed;
+
+	NodeEntry(INode node) {
+		this.node = node;
+	}
+
+	INode getNode() {
+		return node;
+	}
+
+	NodeEntry getPredecessor() {
+		return predecessor;
+	}
+
+	void setPredecessor(NodeEntry predecessor) {
+		this.predecessor = predecessor;
+	}
+
+	double getDistanceFromOrigin() {
+		return distanceFromOrigin;
+	}
+
+	void setDistanceFromOrigin(double distanceFromOrigin) {
+		this.distanceFromOrigin = distanceFromOrigin;
+	}
+
+	double getDistanceFromOriginToTarget() {
+		return distanceFromOriginToTarget;
+	}
+
+	void setDistanceFromOriginToTarget(double distanceFromOriginToTarget) {
+		this.distanceFromOriginToTarget = distanceFromOriginToTarget;
+	}
+
+	long getSequence() {
+		return sequence;
+	}
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	int getHeapIndex() {
+		return heapIndex;
+	}
+
+	void setHeapIndex(int heapIndex) {
+		this.heapIndex = heapIndex;
+	}
+
+	boolean isOpen() {
+		return heapIndex >= 0;
+	}
+
+	boolean isClosed() {
+		return closed;
+	}
+
+	void setClosed(boolean closed) {
+		this.closed = closed;
+	}
+}
@@ -0,0 +1,122 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Indexed binary min-heap of open nodes. Entries are ordered by their estimated distance from origin
+ * to target, and by order of first insertion if those are equal. Each entry knows its position in the
+ * heap, so that membership tests are O(1) and decreasing a key is O(log n).
+ */
+class NodeHeap {
+	private NodeEntry[] entries = new NodeEntry[64];
+	private int size;
+	private long nextSequence;
+
+	boolean isEmpty() {
+		return size == 0;
+	}
+
+	int size() {
+		return size;
+	}
+
+	NodeEntry getFirst() {
+		return entries[0];
+	}
+
+	void add(NodeEntry entry) {
+		if (size == entries.length) {
+			entries = Arrays.copyOf(entries, size * 2);
+		}
+		entry.setSequence(nextSequence++);
+		entries[size] = entry;
+		entry.setHeapIndex(size);
+		size++;
+		siftUp(size - 1);
+	}
+
+	void decreaseKey(NodeEntry entry) {
+		siftUp(entry.getHeapIndex());
+	}
+
+	NodeEntry removeFirst() {
+		NodeEntry first = entries[0];
+		size--;
+		if (size > 0) {
+			entries[0] = entries[size];
+			entries[0].setHeapIndex(0);
+			siftDown(0);
+		}
+		entries[size] = null;
+		first.setHeapIndex(-1);
+		return first;
+	}
+
+	private void siftUp(int index) {
+		NodeEntry entry = entries[index];
+		while (index > 0) {
+			int parentIndex = (index - 1) >>> 1;
+			NodeEntry parent = entries[parentIndex];
+			if (!isLess(entry, parent)) {
+				break;
+			}
+			entries[index] = parent;
+			parent.setHeapIndex(index);
+			index = parentIndex;
+		}
+		entries[index] = entry;
+		entry.setHeapIndex(index);
+	}
+
+	private void siftDown(int index) {
+		NodeEntry entry = entries[index];
+		int half = size >>> 1;
+		while (index < half) {
+			int childIndex = (index << 1) + 1;
+			NodeEntry child = entries[childIndex];
+			int rightIndex = childIndex + 1;
+			if ((rightIndex < size) && isLess(entries[rightIndex], child)) {
+				childIndex = rightIndex;
+				child = entries[childIndex];
+			}
+			if (!isLess(child, entry)) {
+				break;
+			}
+			entries[index] = child;
+			child.setHeapIndex(index);
+			index = childIndex;
+		}
+		entries[index] = entry;
+		entry.setHeapIndex(index);
+	}
+
+	private static boolean isLess(NodeEntry e1, NodeEntry e2) {
+		double d1 = e1.getDistanceFromOriginToTarget();
+		double d2 = e2.getDistanceFromOriginToTarget();
+		if (d1 != d2) {
+			return d1 < d2;
+		}
+		return e1.getSequence() < e2.getSequence();
+	}
+}
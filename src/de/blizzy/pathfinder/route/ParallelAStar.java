@@ -0,0 +1,447 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash distributed A* (HDA*). Every node is owned by one of several workers, determined by hashing
+ * the node. Each worker expands its own nodes in best-first order and sends generated successors to
+ * their owners through lock-free queues, so that a single query can make use of several cores.
+ * <p>
+ * Routes are shortest routes as long as estimated distances to target never overestimate. The
+ * functions are called from all workers concurrently and must be thread-safe. Since nearly every
+ * generated node is handed to another thread, this only pays off for long queries on large maps.
+ */
+public class ParallelAStar {
+	private static final int MESSAGE_BATCH_SIZE = 64;
+	private static final int EXPANSION_BATCH_SIZE = 32;
+	private static final int IDLE_SPINS = 64;
+	private static final long IDLE_PARK_NANOS = 1000000L;
+
+	private int workerCount;
+	private ExecutorService executor;
+
+	public ParallelAStar(int workerCount) {
+		if (workerCount < 1) {
+			throw new IllegalArgumentException("workerCount must be >= 1"); //$NON-NLS-1$
+		}
+
+		this.workerCount = workerCount;
+		if (workerCount > 1) {
+			executor = Executors.newFixedThreadPool(workerCount - 1, new ThreadFactory() {
+				private AtomicInteger threadNumber = new AtomicInteger();
+
+				@Override
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "parallel-astar-" + threadNumber.getAndIncrement()); //$NON-NLS-1$
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+	}
+
+	public int getWorkerCount() {
+		return workerCount;
+	}
+
+	/**
+	 * Returns the shortest route from <code>origin</code> to <code>target</code>, or <code>null</code>
+	 * if there is no route. The calling thread acts as one of the workers. Queries are run one at a
+	 * time, since each query needs all workers at once.
+	 */
+	public synchronized int[] getShortestRoute(int origin, int target, IIndexedAStarFunctions function) {
+		if ((executor != null) && executor.isShutdown()) {
+			throw new IllegalStateException("already disposed"); //$NON-NLS-1$
+		}
+
+		Search search = new Search(workerCount, target, function);
+		search.send(origin, 0d, IndexedAStar.NO_NODE);
+
+		List<Future<?>> futures = new ArrayList<>(workerCount - 1);
+		for (int i = 1; i < workerCount; i++) {
+			futures.add(executor.submit(search.getWorker(i)));
+		}
+		try {
+			search.getWorker(0).run();
+		} finally {
+			search.stop();
+			waitFor(futures);
+		}
+
+		return search.toRoute();
+	}
+
+	private void waitFor(List<Future<?>> futures) {
+		boolean interrupted = false;
+		RuntimeException exception = null;
+		for (Future<?> future : futures) {
+			for (;;) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Error) {
+						throw (Error) cause;
+					}
+					if (exception == null) {
+						exception = (cause instanceof RuntimeException) ?
+								(RuntimeException) cause : new IllegalStateException(cause);
+					}
+					break;
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		if (exception != null) {
+			throw exception;
+		}
+	}
+
+	/** Stops the worker threads. The instance cannot be used afterwards. */
+	public void dispose() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+
+	private static class Search {
+		private IIndexedAStarFunctions function;
+		private IIndexedTargetFunctions targetFunction;
+		private int target;
+		private Worker[] workers;
+		// number of messages not yet received plus number of busy workers. Only busy workers send
+		// messages, and only messages make workers busy, so the search is over once this drops to 0.
+		private AtomicInteger activity = new AtomicInteger();
+		private volatile boolean done;
+		private volatile double bestDistance = Double.POSITIVE_INFINITY;
+		private int bestTargetNode = IndexedAStar.NO_NODE;
+
+		Search(int workerCount, int target, IIndexedAStarFunctions function) {
+			this.target = target;
+			this.function = function;
+			targetFunction = (function instanceof IIndexedTargetFunctions) ? (IIndexedTargetFunctions) function : null;
+			workers = new Worker[workerCount];
+			for (int i = 0; i < workerCount; i++) {
+				workers[i] = new Worker(this, i);
+			}
+		}
+
+		Worker getWorker(int index) {
+			return workers[index];
+		}
+
+		int getOwner(int node) {
+			int hash = node * 0x9E3779B9;
+			hash ^= hash >>> 16;
+			return (hash & Integer.MAX_VALUE) % workers.length;
+		}
+
+		void send(int node, double distanceFromOrigin, int predecessor) {
+			Message message = new Message();
+			message.add(node, distanceFromOrigin, predecessor);
+			send(getOwner(node), message);
+		}
+
+		void send(int worker, Message message) {
+			activity.incrementAndGet();
+			workers[worker].deliver(message);
+		}
+
+		void workerBusy() {
+			activity.incrementAndGet();
+		}
+
+		// called when a message has been received or a worker has become idle
+		void activityFinished() {
+			if (activity.decrementAndGet() == 0) {
+				stop();
+			}
+		}
+
+		boolean isDone() {
+			return done;
+		}
+
+		void stop() {
+			done = true;
+			for (Worker worker : workers) {
+				worker.wakeUp();
+			}
+		}
+
+		boolean isTarget(int node) {
+			return ((targetFunction != null) ? targetFunction.getTargetNode(node) : node) == target;
+		}
+
+		double getEstimatedDistanceToTarget(int node) {
+			return function.getEstimatedDistanceToTarget(node, target);
+		}
+
+		IIndexedAStarFunctions getFunction() {
+			return function;
+		}
+
+		double getBestDistance() {
+			return bestDistance;
+		}
+
+		synchronized void targetReached(int node, double distanceFromOrigin) {
+			if (distanceFromOrigin < bestDistance) {
+				bestDistance = distanceFromOrigin;
+				bestTargetNode = node;
+			}
+		}
+
+		// must only be called after all workers have stopped
+		int[] toRoute() {
+			int targetNode;
+			synchronized (this) {
+				targetNode = bestTargetNode;
+			}
+			if (targetNode == IndexedAStar.NO_NODE) {
+				return null;
+			}
+
+			int length = 0;
+			for (int node = targetNode; node != IndexedAStar.NO_NODE; node = getPredecessor(node)) {
+				length++;
+			}
+
+			int[] route = new int[length];
+			for (int node = targetNode, i = length - 1; node != IndexedAStar.NO_NODE; node = getPredecessor(node), i--) {
+				route[i] = node;
+			}
+			return route;
+		}
+
+		private int getPredecessor(int node) {
+			return workers[getOwner(node)].getPredecessor(node);
+		}
+	}
+
+	private static class Worker implements Runnable {
+		private Search search;
+		private int index;
+		private ConcurrentLinkedQueue<Message> inbox = new ConcurrentLinkedQueue<>();
+		private Message[] outbox;
+		private LongIntHashMap slots = new LongIntHashMap(1024);
+		private int[] nodes = new int[1024];
+		private double[] distancesFromOrigin = new double[1024];
+		private int[] predecessors = new int[1024];
+		private int slotCount;
+		private IntHeap openNodes = new IntHeap(1024);
+		private int[] adjacentNodes;
+		private long nextSequence;
+		private boolean busy;
+		private volatile Thread thread;
+		private volatile boolean parked;
+
+		Worker(Search search, int index) {
+			this.search = search;
+			this.index = index;
+			outbox = new Message[search.workers.length];
+			adjacentNodes = new int[search.getFunction().getMaxAdjacentNodes()];
+		}
+
+		void deliver(Message message) {
+			inbox.add(message);
+			wakeUp();
+		}
+
+		void wakeUp() {
+			if (parked) {
+				LockSupport.unpark(thread);
+			}
+		}
+
+		@Override
+		public void run() {
+			thread = Thread.currentThread();
+			int idleSpins = 0;
+			try {
+				while (!search.isDone()) {
+					Message message = inbox.poll();
+					if (message != null) {
+						idleSpins = 0;
+						if (!busy) {
+							search.workerBusy();
+							busy = true;
+						}
+						for (int i = 0; i < message.size; i++) {
+							receive(message.nodes[i], message.distancesFromOrigin[i], message.predecessors[i]);
+						}
+						search.activityFinished();
+					} else if (busy) {
+						if (!expandNodes()) {
+							flush();
+							busy = false;
+							search.activityFinished();
+						}
+					} else if (idleSpins < IDLE_SPINS) {
+						idleSpins++;
+						Thread.yield();
+					} else {
+						park();
+					}
+				}
+			} finally {
+				// also stops the other workers if this one has failed
+				search.stop();
+			}
+		}
+
+		private void park() {
+			parked = true;
+			// senders check for parked workers after adding their messages, so check again to not miss any
+			if (inbox.isEmpty() && !search.isDone()) {
+				LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+			}
+			parked = false;
+		}
+
+		// returns false if there are no nodes left that could lead to a shorter route
+		private boolean expandNodes() {
+			for (int i = 0; i < EXPANSION_BATCH_SIZE; i++) {
+				if (openNodes.isEmpty() || (openNodes.getFirstKey() >= search.getBestDistance())) {
+					return i > 0;
+				}
+				expandNode(openNodes.removeFirst());
+			}
+			flush();
+			// lets other workers catch up when there are more workers than cores. Without this, a worker
+			// would expand its nodes far ahead of the others and would have to expand them again later.
+			Thread.yield();
+			return true;
+		}
+
+		private void expandNode(int slot) {
+			IIndexedAStarFunctions function = search.getFunction();
+			int currentNode = nodes[slot];
+			double distanceFromOriginToCurrent = distancesFromOrigin[slot];
+			int adjacentNodeCount = function.getAdjacentNodes(currentNode, predecessors[slot], adjacentNodes);
+			for (int i = 0; i < adjacentNodeCount; i++) {
+				int successor = adjacentNodes[i];
+				double newDistanceFromOriginToSuccessor = distanceFromOriginToCurrent + function.getDistance(currentNode, successor);
+				int owner = search.getOwner(successor);
+				if (owner == index) {
+					receive(successor, newDistanceFromOriginToSuccessor, currentNode);
+				} else {
+					Message message = outbox[owner];
+					if (message == null) {
+						message = new Message();
+						outbox[owner] = message;
+					}
+					message.add(successor, newDistanceFromOriginToSuccessor, currentNode);
+					if (message.size == MESSAGE_BATCH_SIZE) {
+						outbox[owner] = null;
+						search.send(owner, message);
+					}
+				}
+			}
+		}
+
+		private void flush() {
+			for (int i = 0; i < outbox.length; i++) {
+				if (outbox[i] != null) {
+					search.send(i, outbox[i]);
+					outbox[i] = null;
+				}
+			}
+		}
+
+		private void receive(int node, double distanceFromOrigin, int predecessor) {
+			boolean target = search.isTarget(node);
+			double distanceFromOriginToTarget = target ?
+					distanceFromOrigin : (distanceFromOrigin + search.getEstimatedDistanceToTarget(node));
+			if (distanceFromOriginToTarget >= search.getBestDistance()) {
+				return;
+			}
+
+			int slot = slots.get(node, -1);
+			if (slot < 0) {
+				slot = addSlot(node);
+			} else if (distanceFromOrigin >= distancesFromOrigin[slot]) {
+				return;
+			}
+			distancesFromOrigin[slot] = distanceFromOrigin;
+			predecessors[slot] = predecessor;
+
+			// routes through a target are never shorter than the route to that target
+			if (target) {
+				search.targetReached(node, distanceFromOrigin);
+			} else if (openNodes.contains(slot)) {
+				openNodes.update(slot, distanceFromOriginToTarget, openNodes.getSecondaryKey(slot));
+			} else {
+				openNodes.add(slot, distanceFromOriginToTarget, nextSequence++);
+			}
+		}
+
+		private int addSlot(int node) {
+			if (slotCount == nodes.length) {
+				int newLength = slotCount * 2;
+				nodes = Arrays.copyOf(nodes, newLength);
+				distancesFromOrigin = Arrays.copyOf(distancesFromOrigin, newLength);
+				predecessors = Arrays.copyOf(predecessors, newLength);
+				openNodes.ensureNodeCount(newLength);
+			}
+			int slot = slotCount++;
+			nodes[slot] = node;
+			slots.put(node, slot);
+			return slot;
+		}
+
+		int getPredecessor(int node) {
+			return predecessors[slots.get(node, -1)];
+		}
+	}
+
+	private static class Message {
+		int[] nodes = new int[MESSAGE_BATCH_SIZE];
+		double[] distancesFromOrigin = new double[MESSAGE_BATCH_SIZE];
+		int[] predecessors = new int[MESSAGE_BATCH_SIZE];
+		int size;
+
+		void add(int node, double distanceFromOrigin, int predecessor) {
+			nodes[size] = node;
+			distancesFromOrigin[size] = distanceFromOrigin;
+			predecessors[size] = predecessor;
+			size++;
+		}
+	}
+}
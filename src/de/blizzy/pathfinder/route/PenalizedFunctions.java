@@ -0,0 +1,85 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Wraps functions so that entering a node costs more the more often the node was penalized, and
+ * so that remaining distances are taken from a precomputed table. Penalties make distances only
+ * longer, so the table stays a valid estimate however the nodes are penalized.
+ */
+class PenalizedFunctions implements IIndexedTargetFunctions {
+	private IIndexedAStarFunctions function;
+	private IIndexedTargetFunctions targetFunction;
+	private double[] distancesToTarget;
+	private double[] penalties;
+	private int[] allAdjacentNodes;
+
+	PenalizedFunctions(IIndexedAStarFunctions function, double[] distancesToTarget) {
+		this.function = function;
+		targetFunction = (function instanceof IIndexedTargetFunctions) ? (IIndexedTargetFunctions) function : null;
+		this.distancesToTarget = distancesToTarget;
+		penalties = new double[function.getNodeCount()];
+		allAdjacentNodes = new int[function.getMaxAdjacentNodes()];
+	}
+
+	void penalize(int node, double penalty) {
+		penalties[node] += penalty;
+	}
+
+	@Override
+	public int getNodeCount() {
+		return function.getNodeCount();
+	}
+
+	@Override
+	public int getMaxAdjacentNodes() {
+		return function.getMaxAdjacentNodes();
+	}
+
+	@Override
+	public double getEstimatedDistanceToTarget(int node, int target) {
+		return distancesToTarget[node];
+	}
+
+	@Override
+	public double getDistance(int node1, int node2) {
+		return function.getDistance(node1, node2) * (1d + penalties[node2]);
+	}
+
+	@Override
+	public int getAdjacentNodes(int node, int precedingNode, int[] adjacentNodes) {
+		int allAdjacentNodeCount = function.getAdjacentNodes(node, precedingNode, allAdjacentNodes);
+		int adjacentNodeCount = 0;
+		for (int i = 0; i < allAdjacentNodeCount; i++) {
+			// the target cannot be reached from nodes without a distance
+			if (distancesToTarget[allAdjacentNodes[i]] != Double.POSITIVE_INFINITY) {
+				adjacentNodes[adjacentNodeCount++] = allAdjacentNodes[i];
+			}
+		}
+		return adjacentNodeCount;
+	}
+
+	@Override
+	public int getTargetNode(int node) {
+		return (targetFunction != null) ? targetFunction.getTargetNode(node) : node;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Space-time reservation table for cooperative route planning. A reservation claims a node for a
+ * single tick on behalf of an owner. Reservations are kept in a primitive hash map keyed by
+ * (node, tick), so checking and claiming a reservation is O(1).
+ * <p>
+ * Instances of this class are not thread-safe.
+ */
+public class ReservationTable {
+	private static final int NO_OWNER = -1;
+
+	private LongIntHashMap owners;
+
+	public ReservationTable(int expectedSize) {
+		owners = new LongIntHashMap(expectedSize);
+	}
+
+	/**
+	 * Returns whether <code>node</code> is reserved at <code>tick</code> by an owner other than
+	 * <code>owner</code>.
+	 */
+	public boolean isReserved(int node, long tick, int owner) {
+		int reservedBy = owners.get(getKey(node, tick), NO_OWNER);
+		return (reservedBy != NO_OWNER) && (reservedBy != owner);
+	}
+
+	/**
+	 * Reserves each node of <code>route</code> for the ticks during which it is occupied. Nodes that
+	 * are reserved by other owners already are skipped.
+	 */
+	public void reserve(SpaceTimeRoute route, int owner) {
+		if (owner < 0) {
+			throw new IllegalArgumentException("owner must be >= 0"); //$NON-NLS-1$
+		}
+
+		for (int step = 1; step < route.getStepCount(); step++) {
+			int node = route.getNode(step);
+			for (long tick = route.getFirstTick(step); tick < route.getFirstTick(step + 1); tick++) {
+				long key = getKey(node, tick);
+				if (owners.get(key, NO_OWNER) == NO_OWNER) {
+					owners.put(key, owner);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Releases all reservations of <code>route</code> that are held by <code>owner</code>.
+	 */
+	public void release(SpaceTimeRoute route, int owner) {
+		for (int step = 1; step < route.getStepCount(); step++) {
+			int node = route.getNode(step);
+			for (long tick = route.getFirstTick(step); tick < route.getFirstTick(step + 1); tick++) {
+				long key = getKey(node, tick);
+				if (owners.get(key, NO_OWNER) == owner) {
+					owners.remove(key);
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return owners.size();
+	}
+
+	public void clear() {
+		owners.clear();
+	}
+
+	private static long getKey(int node, long tick) {
+		return ((long) node << 32) | (tick & 0xFFFFFFFFL);
+	}
+}
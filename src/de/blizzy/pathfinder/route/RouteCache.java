@@ -0,0 +1,172 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bounded LRU cache of routes between int nodes. Cached routes are indexed by the nodes they pass,
+ * so that they can be invalidated selectively when a node becomes blocked. Blocking a node can
+ * only make routes longer, so routes not passing the node remain shortest routes, and pairs
+ * without a route remain without a route.
+ */
+public class RouteCache {
+	/** Returned by {@link #get(int, int)} for pairs that are known to have no route. */
+	public static final int[] NO_ROUTE = new int[0];
+
+	private int capacity;
+	private Map<Long, int[]> routes;
+	private Map<Integer, Set<Long>> routesByNode = new HashMap<>();
+	private long hits;
+	private long misses;
+	private long evictions;
+	private long invalidations;
+
+	@SuppressWarnings("serial")
+	public RouteCache(int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity must be positive"); //$NON-NLS-1$
+		}
+
+		this.capacity = capacity;
+		routes = new LinkedHashMap<Long, int[]>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, int[]> eldest) {
+				if (size() > RouteCache.this.capacity) {
+					unindex(eldest.getKey().longValue(), eldest.getValue());
+					evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached route from <code>origin</code> to <code>target</code>, {@link #NO_ROUTE}
+	 * if there is no route between them, or <code>null</code> if the pair is not cached.
+	 */
+	public synchronized int[] get(int origin, int target) {
+		int[] route = routes.get(Long.valueOf(getKey(origin, target)));
+		if (route != null) {
+			hits++;
+		} else {
+			misses++;
+		}
+		return route;
+	}
+
+	/**
+	 * Caches the route from <code>origin</code> to <code>target</code>. <code>route</code> may be
+	 * <code>null</code> if there is no route between them.
+	 */
+	public synchronized void put(int origin, int target, int[] route) {
+		long key = getKey(origin, target);
+		int[] oldRoute = routes.remove(Long.valueOf(key));
+		if (oldRoute != null) {
+			unindex(key, oldRoute);
+		}
+
+		if (route == null) {
+			route = NO_ROUTE;
+		}
+		index(key, route);
+		routes.put(Long.valueOf(key), route);
+	}
+
+	/** Removes all cached routes that pass <code>node</code>. */
+	public synchronized void invalidate(int node) {
+		Set<Long> keys = routesByNode.remove(Integer.valueOf(node));
+		if (keys != null) {
+			for (Long key : keys) {
+				int[] route = routes.remove(key);
+				unindex(key.longValue(), route);
+				invalidations++;
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		invalidations += routes.size();
+		routes.clear();
+		routesByNode.clear();
+	}
+
+	public synchronized int size() {
+		return routes.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized long getInvalidations() {
+		return invalidations;
+	}
+
+	private void index(long key, int[] route) {
+		Long boxedKey = Long.valueOf(key);
+		for (int node : route) {
+			Integer boxedNode = Integer.valueOf(node);
+			Set<Long> keys = routesByNode.get(boxedNode);
+			if (keys == null) {
+				keys = new HashSet<>();
+				routesByNode.put(boxedNode, keys);
+			}
+			keys.add(boxedKey);
+		}
+	}
+
+	private void unindex(long key, int[] route) {
+		Long boxedKey = Long.valueOf(key);
+		for (int node : route) {
+			Integer boxedNode = Integer.valueOf(node);
+			Set<Long> keys = routesByNode.get(boxedNode);
+			if (keys != null) {
+				keys.remove(boxedKey);
+				if (keys.isEmpty()) {
+					routesByNode.remove(boxedNode);
+				}
+			}
+		}
+	}
+
+	private static long getKey(int origin, int target) {
+		return ((long) origin << 32) | (target & 0xffffffffL);
+	}
+}
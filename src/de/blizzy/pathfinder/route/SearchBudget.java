@@ -0,0 +1,83 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Limits the work a single search may do. A search stops without a route when it has expanded the
+ * maximum number of nodes, when it has run for the maximum time, or when the budget is cancelled
+ * from another thread. Budgets are meant to be used for a single search only.
+ */
+public class SearchBudget {
+	private static final int TIME_CHECK_INTERVAL = 256;
+
+	private int maxExpansions;
+	private long maxNanos;
+	private long startNanos;
+	private int expansions;
+	private volatile boolean cancelled;
+	private boolean exhausted;
+
+	public SearchBudget(int maxExpansions, long maxMillis) {
+		if ((maxExpansions <= 0) || (maxMillis <= 0)) {
+			throw new IllegalArgumentException("budget must be positive"); //$NON-NLS-1$
+		}
+
+		this.maxExpansions = maxExpansions;
+		maxNanos = (maxMillis < (Long.MAX_VALUE / 1000000L)) ? (maxMillis * 1000000L) : Long.MAX_VALUE;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Returns whether a search using this budget has stopped because it ran out of expansions or time,
+	 * or because it was cancelled.
+	 */
+	public boolean isExhausted() {
+		return exhausted;
+	}
+
+	public int getExpansions() {
+		return expansions;
+	}
+
+	void start() {
+		startNanos = System.nanoTime();
+		expansions = 0;
+		exhausted = false;
+	}
+
+	boolean expand() {
+		expansions++;
+		if (cancelled || (expansions > maxExpansions) ||
+				(((expansions % TIME_CHECK_INTERVAL) == 0) && ((System.nanoTime() - startNanos) > maxNanos))) {
+
+			exhausted = true;
+		}
+		return !exhausted;
+	}
+}
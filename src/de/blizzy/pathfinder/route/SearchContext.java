@@ -0,0 +1,115 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Holds the search state of an {@link IndexedAStar} query. A context can be reused for any number of
+ * queries; resetting it is O(1), so that steady-state queries only allocate the returned route.
+ * Contexts are not thread-safe and should be pooled or kept per thread.
+ */
+public class SearchContext {
+	private double[] distancesFromOrigin = new double[0];
+	private int[] predecessors = new int[0];
+	private int[] closedGenerations = new int[0];
+	private int generation;
+	private IntHeap openNodes = new IntHeap(0);
+	private int[] adjacentNodes = new int[0];
+	private long nextSequence;
+	private int allocations;
+
+	public SearchContext() {
+	}
+
+	void reset(IIndexedAStarFunctions function) {
+		int nodeCount = function.getNodeCount();
+		if (distancesFromOrigin.length < nodeCount) {
+			distancesFromOrigin = new double[nodeCount];
+			predecessors = new int[nodeCount];
+			closedGenerations = new int[nodeCount];
+			generation = 0;
+			allocations += openNodes.getAllocations() + 1;
+			openNodes = new IntHeap(nodeCount);
+		} else {
+			openNodes.clear();
+		}
+		int maxAdjacentNodes = function.getMaxAdjacentNodes();
+		if (adjacentNodes.length < maxAdjacentNodes) {
+			adjacentNodes = new int[maxAdjacentNodes];
+			allocations++;
+		}
+
+		generation++;
+		if (generation == 0) {
+			Arrays.fill(closedGenerations, 0);
+			generation = 1;
+		}
+		nextSequence = 0;
+	}
+
+	/**
+	 * Returns the number of times this context had to allocate or grow its arrays, including the
+	 * open set. This is the test hook for the zero-allocation property: the number must not change
+	 * across repeated queries against graphs that are not larger than the ones before. Allocations
+	 * outside of this context, such as returned routes, are not counted.
+	 */
+	public int getAllocations() {
+		return allocations + openNodes.getAllocations();
+	}
+
+	double getDistanceFromOrigin(int node) {
+		return distancesFromOrigin[node];
+	}
+
+	void setDistanceFromOrigin(int node, double distanceFromOrigin) {
+		distancesFromOrigin[node] = distanceFromOrigin;
+	}
+
+	int getPredecessor(int node) {
+		return predecessors[node];
+	}
+
+	void setPredecessor(int node, int predecessor) {
+		predecessors[node] = predecessor;
+	}
+
+	boolean isClosed(int node) {
+		return closedGenerations[node] == generation;
+	}
+
+	void setClosed(int node) {
+		closedGenerations[node] = generation;
+	}
+
+	IntHeap getOpenNodes() {
+		return openNodes;
+	}
+
+	int[] getAdjacentNodes() {
+		return adjacentNodes;
+	}
+
+	long nextSequence() {
+		return nextSequence++;
+	}
+}
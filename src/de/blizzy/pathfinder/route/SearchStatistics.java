@@ -0,0 +1,99 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * Statistics of a single route search. An instance is filled in by passing it to a search, and
+ * should not be reused for another search.
+ */
+public class SearchStatistics {
+	private int expandedNodes;
+	private int generatedNodes;
+	private int improvedNodes;
+	private int maxOpenNodes;
+	private long startNanos;
+	private long nanos;
+	private int routeLength;
+
+	public SearchStatistics() {
+	}
+
+	/** Returns the number of nodes taken from the open set and expanded. */
+	public int getExpandedNodes() {
+		return expandedNodes;
+	}
+
+	/** Returns the number of nodes added to the open set. */
+	public int getGeneratedNodes() {
+		return generatedNodes;
+	}
+
+	/** Returns how many times a node already in the open set was reached on a shorter route. */
+	public int getImprovedNodes() {
+		return improvedNodes;
+	}
+
+	/** Returns the largest size of the open set during the search. */
+	public int getMaxOpenNodes() {
+		return maxOpenNodes;
+	}
+
+	/** Returns the wall-clock time the search took, in nanoseconds. */
+	public long getNanos() {
+		return nanos;
+	}
+
+	/** Returns the number of nodes on the route found, or 0 if no route was found. */
+	public int getRouteLength() {
+		return routeLength;
+	}
+
+	void start() {
+		startNanos = System.nanoTime();
+	}
+
+	void finish(int routeLength) {
+		nanos = System.nanoTime() - startNanos;
+		this.routeLength = routeLength;
+	}
+
+	void nodeExpanded() {
+		expandedNodes++;
+	}
+
+	void nodeGenerated(int openNodes) {
+		generatedNodes++;
+		if (openNodes > maxOpenNodes) {
+			maxOpenNodes = openNodes;
+		}
+	}
+
+	void nodeImproved() {
+		improvedNodes++;
+	}
+
+	@Override
+	public String toString() {
+		return "expanded: " + expandedNodes + ", generated: " + generatedNodes + ", improved: " + improvedNodes + //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+				", max. open: " + maxOpenNodes + ", time: " + (nanos / 1000L) + " us, route length: " + routeLength; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
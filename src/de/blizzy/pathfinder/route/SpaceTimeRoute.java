@@ -0,0 +1,76 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+/**
+ * A route through space and time. Step 0 is the node at the start tick. Every later step takes
+ * the same number of ticks, during which its node is occupied; a step to the same node as before
+ * means waiting.
+ */
+public class SpaceTimeRoute {
+	private int[] nodes;
+	private long startTick;
+	private int stepTicks;
+
+	SpaceTimeRoute(int[] nodes, long startTick, int stepTicks) {
+		this.nodes = nodes;
+		this.startTick = startTick;
+		this.stepTicks = stepTicks;
+	}
+
+	public int getStepCount() {
+		return nodes.length;
+	}
+
+	public int getNode(int step) {
+		return nodes[step];
+	}
+
+	public long getStartTick() {
+		return startTick;
+	}
+
+	public int getStepTicks() {
+		return stepTicks;
+	}
+
+	/**
+	 * Returns the first tick during which the node of <code>step</code> is occupied. Step 0 is
+	 * occupied before the start tick.
+	 */
+	long getFirstTick(int step) {
+		return startTick + (long) (step - 1) * stepTicks;
+	}
+
+	/**
+	 * Returns the step at which the route has arrived at <code>tick</code>, or -1 if
+	 * <code>tick</code> is not the start of a step.
+	 */
+	public int getStep(long tick) {
+		long ticks = tick - startTick;
+		if ((ticks < 0) || ((ticks % stepTicks) != 0)) {
+			return -1;
+		}
+		long step = ticks / stepTicks;
+		return (step < nodes.length) ? (int) step : -1;
+	}
+}
@@ -0,0 +1,226 @@
+/*
+Copyright (C) 2013 Maik Schreiber
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to
+deal in the Software without restriction, including without limitation the
+rights to use, copy, modify, merge, publish, distribute, sublicense, and/or
+sell copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+SOFTWARE.
+*/
+package de.blizzy.pathfinder.route;
+
+import java.util.Arrays;
+
+/**
+ * Strongly connected components of a {@link DirectedGraph}, computed with Tarjan's algorithm.
+ * Edges leading into a blocked node are impassable. Together with the graph of the components, the
+ * components answer whether a node can be reached from another node without searching the graph.
+ * <p>
+ * Tarjan's algorithm numbers the components in reverse topological order, so an edge between two
+ * components always leads from a higher to a lower component number.
+ */
+public class StronglyConnectedComponents {
+	private int[] components;
+	private int componentCount;
+	private int[] firstComponentEdges;
+	private int[] componentEdgeTargets;
+	private ThreadLocal<Query> queries = new ThreadLocal<Query>() {
+		@Override
+		protected Query initialValue() {
+			return new Query(componentCount);
+		}
+	};
+
+	public StronglyConnectedComponents(DirectedGraph graph, int[] blockedNodes) {
+		int nodeCount = graph.getNodeCount();
+		boolean[] blocked = new boolean[nodeCount];
+		for (int node : blockedNodes) {
+			blocked[node] = true;
+		}
+
+		components = new int[nodeCount];
+		findComponents(graph, blocked);
+		buildComponentGraph(graph, blocked);
+	}
+
+	private void findComponents(DirectedGraph graph, boolean[] blocked) {
+		int nodeCount = graph.getNodeCount();
+		int[] indexes = new int[nodeCount];
+		int[] lowLinks = new int[nodeCount];
+		boolean[] onStack = new boolean[nodeCount];
+		int[] stack = new int[nodeCount];
+		int stackSize = 0;
+		int[] callNodes = new int[nodeCount];
+		int[] callEdges = new int[nodeCount];
+		int callDepth = 0;
+		int nextIndex = 1;
+
+		for (int root = 0; root < nodeCount; root++) {
+			if (indexes[root] != 0) {
+				continue;
+			}
+
+			indexes[root] = nextIndex;
+			lowLinks[root] = nextIndex;
+			nextIndex++;
+			stack[stackSize++] = root;
+			onStack[root] = true;
+			callNodes[callDepth] = root;
+			callEdges[callDepth] = graph.getFirstEdge(root);
+			callDepth++;
+
+			while (callDepth > 0) {
+				int node = callNodes[callDepth - 1];
+				int edge = callEdges[callDepth - 1];
+				if (edge < graph.getFirstEdge(node + 1)) {
+					callEdges[callDepth - 1]++;
+					int target = graph.getEdgeTarget(edge);
+					if (blocked[target]) {
+						continue;
+					}
+
+					if (indexes[target] == 0) {
+						indexes[target] = nextIndex;
+						lowLinks[target] = nextIndex;
+						nextIndex++;
+						stack[stackSize++] = target;
+						onStack[target] = true;
+						callNodes[callDepth] = target;
+						callEdges[callDepth] = graph.getFirstEdge(target);
+						callDepth++;
+					} else if (onStack[target]) {
+						lowLinks[node] = Math.min(lowLinks[node], indexes[target]);
+					}
+				} else {
+					callDepth--;
+					if (lowLinks[node] == indexes[node]) {
+						int member;
+						do {
+							member = stack[--stackSize];
+							onStack[member] = false;
+							components[member] = componentCount;
+						} while (member != node);
+						componentCount++;
+					}
+					if (callDepth > 0) {
+						int parent = callNodes[callDepth - 1];
+						lowLinks[parent] = Math.min(lowLinks[parent], lowLinks[node]);
+					}
+				}
+			}
+		}
+	}
+
+	private void buildComponentGraph(DirectedGraph graph, boolean[] blocked) {
+		int nodeCount = graph.getNodeCount();
+		firstComponentEdges = new int[componentCount + 1];
+		for (int node = 0; node < nodeCount; node++) {
+			for (int edge = graph.getFirstEdge(node); edge < graph.getFirstEdge(node + 1); edge++) {
+				int target = graph.getEdgeTarget(edge);
+				if (!blocked[target] && (components[target] != components[node])) {
+					firstComponentEdges[components[node] + 1]++;
+				}
+			}
+		}
+		for (int component = 0; component < componentCount; component++) {
+			firstComponentEdges[component + 1] += firstComponentEdges[component];
+		}
+
+		componentEdgeTargets = new int[firstComponentEdges[componentCount]];
+		int[] nextEdges = new int[componentCount];
+		System.arraycopy(firstComponentEdges, 0, nextEdges, 0, componentCount);
+		for (int node = 0; node < nodeCount; node++) {
+			for (int edge = graph.getFirstEdge(node); edge < graph.getFirstEdge(node + 1); edge++) {
+				int target = graph.getEdgeTarget(edge);
+				if (!blocked[target] && (components[target] != components[node])) {
+					componentEdgeTargets[nextEdges[components[node]]++] = components[target];
+				}
+			}
+		}
+	}
+
+	public int getComponentCount() {
+		return componentCount;
+	}
+
+	public int getComponent(int node) {
+		return components[node];
+	}
+
+	/**
+	 * Returns whether <code>target</code> can be reached from <code>origin</code>. Only the graph of
+	 * the components is searched, and only the components that may lead to <code>target</code>'s
+	 * component.
+	 */
+	public boolean isReachable(int origin, int target) {
+		int originComponent = components[origin];
+		int targetComponent = components[target];
+		if (originComponent == targetComponent) {
+			return true;
+		}
+		if (originComponent < targetComponent) {
+			return false;
+		}
+
+		Query query = queries.get();
+		query.reset();
+		int[] stack = query.stack;
+		int stackSize = 0;
+		stack[stackSize++] = originComponent;
+		query.setVisited(originComponent);
+		while (stackSize > 0) {
+			int component = stack[--stackSize];
+			for (int edge = firstComponentEdges[component]; edge < firstComponentEdges[component + 1]; edge++) {
+				int nextComponent = componentEdgeTargets[edge];
+				if (nextComponent == targetComponent) {
+					return true;
+				}
+				// components with lower numbers cannot lead to the target's component
+				if ((nextComponent > targetComponent) && !query.isVisited(nextComponent)) {
+					query.setVisited(nextComponent);
+					stack[stackSize++] = nextComponent;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static class Query {
+		int[] stack;
+		private int[] visitedGenerations;
+		private int generation;
+
+		Query(int componentCount) {
+			stack = new int[componentCount];
+			visitedGenerations = new int[componentCount];
+		}
+
+		void reset() {
+			generation++;
+			if (generation == 0) {
+				Arrays.fill(visitedGenerations, 0);
+				generation = 1;
+			}
+		}
+
+		boolean isVisited(int component) {
+			return visitedGenerations[component] == generation;
+		}
+
+		void setVisited(int component) {
+			visitedGenerations[component] = generation;
+		}
+	}
+}